@@ -0,0 +1,101 @@
+package benchmarks;
+
+import edu.princeton.cs.algs4.In;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures <tt>FastCollinearPoints</tt>, on one thread or on all the
+ * available processors, <tt>HashCollinearPoints</tt> and
+ * <tt>IncrementalCollinearPoints</tt> on the <tt>collinear/input*.txt</tt>
+ * datasets: one operation finds all the line segments of a dataset, the
+ * incremental detector adding its points one at a time.
+ *
+ * @author Ali K Thabet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollinearBenchmark {
+
+    private static final Class<?> POINT = DefaultPackage.type("Point");
+
+    private static final MethodHandle NEW_POINT =
+            DefaultPackage.constructor("Point", int.class, int.class);
+    private static final MethodHandle NEW_FAST_COLLINEAR =
+            DefaultPackage.constructor("FastCollinearPoints", Array.newInstance(POINT, 0).getClass());
+    private static final MethodHandle NEW_PARALLEL_COLLINEAR =
+            DefaultPackage.constructor("FastCollinearPoints", Array.newInstance(POINT, 0).getClass(), int.class);
+    private static final MethodHandle NEW_HASH_COLLINEAR =
+            DefaultPackage.constructor("HashCollinearPoints", Array.newInstance(POINT, 0).getClass());
+    private static final MethodHandle HASH_NUMBER_OF_SEGMENTS =
+            DefaultPackage.method("HashCollinearPoints", "numberOfSegments", int.class);
+    private static final MethodHandle NUMBER_OF_SEGMENTS =
+            DefaultPackage.method("FastCollinearPoints", "numberOfSegments", int.class);
+    private static final MethodHandle NEW_INCREMENTAL_COLLINEAR =
+            DefaultPackage.constructor("IncrementalCollinearPoints");
+    private static final MethodHandle INCREMENTAL_ADD =
+            DefaultPackage.method("IncrementalCollinearPoints", "add", int.class, POINT);
+    private static final MethodHandle INCREMENTAL_NUMBER_OF_SEGMENTS =
+            DefaultPackage.method("IncrementalCollinearPoints", "numberOfSegments", int.class);
+
+    @Param({"collinear/input2000.txt", "collinear/input8000.txt"})
+    private String file;
+
+    private Object points; // Point[] of the dataset
+
+    @Setup
+    public void setUp() throws Throwable {
+        In in = new In(file);
+        int n = in.readInt();
+        points = Array.newInstance(POINT, n);
+        for (int i = 0; i < n; i++) {
+            Array.set(points, i, (Object) NEW_POINT.invokeExact(in.readInt(), in.readInt()));
+        }
+    }
+
+    @Benchmark
+    public int fastCollinearPoints() throws Throwable {
+        Object collinear = (Object) NEW_FAST_COLLINEAR.invokeExact(points);
+        return (int) NUMBER_OF_SEGMENTS.invokeExact(collinear);
+    }
+
+    @Benchmark
+    public int fastCollinearPointsParallel() throws Throwable {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Object collinear = (Object) NEW_PARALLEL_COLLINEAR.invokeExact(points, threads);
+        return (int) NUMBER_OF_SEGMENTS.invokeExact(collinear);
+    }
+
+    @Benchmark
+    public int hashCollinearPoints() throws Throwable {
+        Object collinear = (Object) NEW_HASH_COLLINEAR.invokeExact(points);
+        return (int) HASH_NUMBER_OF_SEGMENTS.invokeExact(collinear);
+    }
+
+    @Benchmark
+    public int incrementalCollinearPoints() throws Throwable {
+        Object collinear = (Object) NEW_INCREMENTAL_COLLINEAR.invokeExact();
+        int events = 0;
+        for (int i = 0, n = Array.getLength(points); i < n; i++) {
+            events += (int) INCREMENTAL_ADD.invokeExact(collinear, Array.get(points, i));
+        }
+        return events + (int) INCREMENTAL_NUMBER_OF_SEGMENTS.invokeExact(collinear);
+    }
+}
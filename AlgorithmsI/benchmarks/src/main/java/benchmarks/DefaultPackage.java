@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The <tt>DefaultPackage</tt> class gives the benchmarks access to the
+ * assignment classes.
+ * <p>
+ * The assignments live in the default package, which cannot be imported
+ * from a named package, and JMH refuses benchmarks in the default package.
+ * The benchmarks therefore reach the assignments through method handles,
+ * whose reference types are all erased to <tt>Object</tt>. Handles held in
+ * <tt>static final</tt> fields are constants for the JIT compiler, so an
+ * <em>invokeExact</em> call on them is inlined like a direct call.
+ * </p>
+ *
+ * @author Ali K Thabet
+ */
+final class DefaultPackage {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private DefaultPackage() { }
+
+    /**
+     * Returns the class of the given name in the default package.
+     *
+     * @param name simple name of the class
+     * @return the class
+     */
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Class " + name + " not found in the default package", e);
+        }
+    }
+
+    /**
+     * Returns a handle on a public constructor.
+     *
+     * @param className simple name of the class
+     * @param params parameter types of the constructor
+     * @return handle with every reference type erased to Object
+     */
+    static MethodHandle constructor(String className, Class<?>... params) {
+        try {
+            MethodType type = MethodType.methodType(void.class, params);
+            MethodHandle handle = LOOKUP.findConstructor(type(className), type);
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No constructor " + className + type(params), e);
+        }
+    }
+
+    /**
+     * Returns a handle on a public instance method.
+     *
+     * @param className simple name of the class
+     * @param name name of the method
+     * @param returnType return type of the method
+     * @param params parameter types of the method
+     * @return handle taking the receiver first, with every reference type erased to Object
+     */
+    static MethodHandle method(String className, String name, Class<?> returnType, Class<?>... params) {
+        try {
+            MethodType type = MethodType.methodType(returnType, params);
+            MethodHandle handle = LOOKUP.findVirtual(type(className), name, type);
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No method " + className + "." + name + type(params), e);
+        }
+    }
+
+    /**
+     * Returns a handle on a public static method.
+     *
+     * @param className simple name of the class
+     * @param name name of the method
+     * @param returnType return type of the method
+     * @param params parameter types of the method
+     * @return handle with every reference type erased to Object
+     */
+    static MethodHandle staticMethod(String className, String name, Class<?> returnType, Class<?>... params) {
+        try {
+            MethodType type = MethodType.methodType(returnType, params);
+            MethodHandle handle = LOOKUP.findStatic(type(className), name, type);
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No method " + className + "." + name + type(params), e);
+        }
+    }
+
+    // parameter list for error messages
+    private static String type(Class<?>[] params) {
+        return MethodType.methodType(void.class, params).toString().replace(")void", ")");
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures <tt>KdTree.insert</tt>, <tt>KdTree.nearest</tt> and
+ * <tt>KdTree.range</tt> on the <tt>kdtree/input*K.txt</tt> datasets.
+ * Queries cycle through a fixed set of random points and of random
+ * rectangles of side 0.01.
+ *
+ * @author Ali K Thabet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KdTreeBenchmark {
+
+    private static final int QUERIES = 1024; // power of 2, see next()
+
+    private static final MethodHandle NEW_KDTREE =
+            DefaultPackage.constructor("KdTree");
+    private static final MethodHandle INSERT =
+            DefaultPackage.method("KdTree", "insert", void.class, Point2D.class);
+    private static final MethodHandle NEAREST =
+            DefaultPackage.method("KdTree", "nearest", Point2D.class, Point2D.class);
+    private static final MethodHandle RANGE =
+            DefaultPackage.method("KdTree", "range", Iterable.class, RectHV.class);
+    private static final MethodHandle SIZE =
+            DefaultPackage.method("KdTree", "size", int.class);
+
+    @Param({"kdtree/input10K.txt", "kdtree/input100K.txt", "kdtree/input200K.txt"})
+    private String file;
+
+    private Point2D[] points;      // points of the dataset, in file order
+    private Object tree;           // KdTree holding all the points
+    private Point2D[] queryPoints; // nearest neighbor queries
+    private RectHV[] queryRects;   // range queries
+    private int next;              // index of the next query
+
+    @Setup
+    public void setUp() throws Throwable {
+        List<Point2D> list = new ArrayList<>();
+        In in = new In(file);
+        while (!in.isEmpty()) {
+            list.add(new Point2D(in.readDouble(), in.readDouble()));
+        }
+        points = list.toArray(new Point2D[list.size()]);
+        tree = build();
+
+        Random random = new Random(42);
+        queryPoints = new Point2D[QUERIES];
+        queryRects = new RectHV[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queryPoints[i] = new Point2D(random.nextDouble(), random.nextDouble());
+            double x = 0.99 * random.nextDouble(), y = 0.99 * random.nextDouble();
+            queryRects[i] = new RectHV(x, y, x + 0.01, y + 0.01);
+        }
+    }
+
+    private Object build() throws Throwable {
+        Object kdtree = (Object) NEW_KDTREE.invokeExact();
+        for (Point2D p : points) {
+            INSERT.invokeExact(kdtree, (Object) p);
+        }
+        return kdtree;
+    }
+
+    private int next() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int insert() throws Throwable {
+        return (int) SIZE.invokeExact(build());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object nearest() throws Throwable {
+        return (Object) NEAREST.invokeExact(tree, (Object) queryPoints[next()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object range() throws Throwable {
+        return (Object) RANGE.invokeExact(tree, (Object) queryRects[next()]);
+    }
+}
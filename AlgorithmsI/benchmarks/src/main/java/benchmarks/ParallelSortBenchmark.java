@@ -0,0 +1,97 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the fork/join quicksorts of <tt>Partition</tt> and
+ * <tt>IntPartition</tt> with <em>Arrays.parallelSort</em>, on arrays of
+ * random keys drawn from a given number of distinct values. The arrays
+ * are copied from a fixed random input before every invocation.
+ *
+ * @author Ali K Thabet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSortBenchmark {
+
+    private static final MethodHandle NEW_PARTITION =
+            DefaultPackage.constructor("Partition");
+    private static final MethodHandle PARALLEL_SORT =
+            DefaultPackage.method("Partition", "parallelSort", void.class, Comparable[].class);
+    private static final MethodHandle INT_PARALLEL_SORT =
+            DefaultPackage.staticMethod("IntPartition", "parallelSort", void.class, int[].class);
+
+    @Param({"1000000", "10000000"})
+    private int n;
+
+    @Param({"100", "2147483647"})
+    private int distinct; // number of distinct keys
+
+    private int[] keys;         // random input
+    private Object partition;   // Partition without tracing
+    private Integer[] boxed;    // array sorted by the Comparable benchmarks
+    private int[] primitive;    // array sorted by the int benchmarks
+
+    @Setup
+    public void setUp() throws Throwable {
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextInt(distinct);
+        }
+        partition = (Object) NEW_PARTITION.invokeExact();
+        boxed = new Integer[n];
+    }
+
+    @Setup(Level.Invocation)
+    public void copyKeys() {
+        for (int i = 0; i < n; i++) {
+            boxed[i] = keys[i];
+        }
+        primitive = keys.clone();
+    }
+
+    @Benchmark
+    public Object partitionComparable() throws Throwable {
+        PARALLEL_SORT.invokeExact(partition, (Object) boxed);
+        return boxed;
+    }
+
+    @Benchmark
+    public Object arraysComparable() {
+        Arrays.parallelSort(boxed);
+        return boxed;
+    }
+
+    @Benchmark
+    public Object partitionInt() throws Throwable {
+        INT_PARALLEL_SORT.invokeExact((Object) primitive);
+        return primitive;
+    }
+
+    @Benchmark
+    public Object arraysInt() {
+        Arrays.parallelSort(primitive);
+        return primitive;
+    }
+}
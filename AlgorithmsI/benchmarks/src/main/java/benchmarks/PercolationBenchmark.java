@@ -0,0 +1,71 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures <tt>Percolation.open</tt> and <tt>Percolation.percolates</tt>:
+ * one operation opens the sites of an N x N grid, in a fixed random order,
+ * checking after each one whether the system percolates, until it does.
+ *
+ * @author Ali K Thabet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PercolationBenchmark {
+
+    private static final MethodHandle NEW_PERCOLATION =
+            DefaultPackage.constructor("Percolation", int.class);
+    private static final MethodHandle OPEN =
+            DefaultPackage.method("Percolation", "open", void.class, int.class, int.class);
+    private static final MethodHandle PERCOLATES =
+            DefaultPackage.method("Percolation", "percolates", boolean.class);
+
+    @Param({"256", "1024", "4096"})
+    private int n;
+
+    private int[] sites; // linear indices of the sites in opening order
+
+    @Setup
+    public void setUp() {
+        sites = new int[n * n];
+        for (int p = 0; p < sites.length; p++) {
+            sites[p] = p;
+        }
+        Random random = new Random(42);
+        for (int p = sites.length - 1; p > 0; p--) {
+            int q = random.nextInt(p + 1);
+            int site = sites[p];
+            sites[p] = sites[q];
+            sites[q] = site;
+        }
+    }
+
+    @Benchmark
+    public int openUntilPercolates() throws Throwable {
+        Object perc = (Object) NEW_PERCOLATION.invokeExact(n);
+        int count = 0;
+        while (!(boolean) PERCOLATES.invokeExact(perc)) {
+            int site = sites[count++];
+            OPEN.invokeExact(perc, site / n + 1, site % n + 1);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import edu.princeton.cs.algs4.In;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time <tt>Solver</tt> takes to solve puzzles of the
+ * <tt>8puzzle/puzzle*.txt</tt> corpus, from building the initial
+ * <tt>Board</tt> to the number of moves.
+ *
+ * @author Ali K Thabet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    private static final MethodHandle NEW_BOARD =
+            DefaultPackage.constructor("Board", int[][].class);
+    private static final MethodHandle NEW_SOLVER =
+            DefaultPackage.constructor("Solver", DefaultPackage.type("Board"));
+    private static final MethodHandle MOVES =
+            DefaultPackage.method("Solver", "moves", int.class);
+
+    @Param({"8puzzle/puzzle20.txt", "8puzzle/puzzle30.txt", "8puzzle/puzzle40.txt"})
+    private String file;
+
+    private int[][] blocks; // initial board
+
+    @Setup
+    public void setUp() {
+        In in = new In(file);
+        int n = in.readInt();
+        blocks = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                blocks[i][j] = in.readInt();
+            }
+        }
+    }
+
+    @Benchmark
+    public int solve() throws Throwable {
+        Object initial = (Object) NEW_BOARD.invokeExact((Object) blocks);
+        Object solver = (Object) NEW_SOLVER.invokeExact(initial);
+        return (int) MOVES.invokeExact(solver);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of <tt>WorkStealingDeque</tt> with
+ * <tt>ConcurrentLinkedDeque</tt> under work-stealing usage: one owner
+ * thread adds an item at the end and takes one back, while three thieves
+ * keep polling the beginning.
+ *
+ * @author Ali K Thabet
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkStealingDequeBenchmark {
+
+    private static final MethodHandle NEW_DEQUE =
+            DefaultPackage.constructor("WorkStealingDeque");
+    private static final MethodHandle ADD_LAST =
+            DefaultPackage.method("WorkStealingDeque", "addLast", void.class, Object.class);
+    private static final MethodHandle POLL_LAST =
+            DefaultPackage.method("WorkStealingDeque", "pollLast", Object.class);
+    private static final MethodHandle POLL_FIRST =
+            DefaultPackage.method("WorkStealingDeque", "pollFirst", Object.class);
+
+    private static final Integer ITEM = 42;
+
+    private Object workStealing;
+    private ConcurrentLinkedDeque<Integer> concurrentLinked;
+
+    @Setup
+    public void setUp() throws Throwable {
+        workStealing = (Object) NEW_DEQUE.invokeExact();
+        concurrentLinked = new ConcurrentLinkedDeque<>();
+    }
+
+    @Benchmark
+    @Group("workStealing")
+    @GroupThreads(1)
+    public Object workStealingOwner() throws Throwable {
+        ADD_LAST.invokeExact(workStealing, (Object) ITEM);
+        ADD_LAST.invokeExact(workStealing, (Object) ITEM);
+        return (Object) POLL_LAST.invokeExact(workStealing);
+    }
+
+    @Benchmark
+    @Group("workStealing")
+    @GroupThreads(3)
+    public Object workStealingThief() throws Throwable {
+        return (Object) POLL_FIRST.invokeExact(workStealing);
+    }
+
+    @Benchmark
+    @Group("concurrentLinked")
+    @GroupThreads(1)
+    public Object concurrentLinkedOwner() {
+        concurrentLinked.addLast(ITEM);
+        concurrentLinked.addLast(ITEM);
+        return concurrentLinked.pollLast();
+    }
+
+    @Benchmark
+    @Group("concurrentLinked")
+    @GroupThreads(3)
+    public Object concurrentLinkedThief() {
+        return concurrentLinked.pollFirst();
+    }
+}
@@ -2,7 +2,6 @@ import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
@@ -13,7 +12,7 @@ import java.util.Arrays;
  * The implementation uses stores an array of points in
  * <em>points</em> and finds all line segments containing
  * 4 collinear points. The line segments are stored in
- * <em>lineSegments</em>
+ * <em>lineSegments</em>, packed as the coordinates of their endpoints
  * </p>
  *
  * @author Ali K Thabet
@@ -21,8 +20,8 @@ import java.util.Arrays;
 public class BruteCollinearPoints {
 
     private Point[] points; // array of all points
-    private LineSegment[] lineSegments; // array of line segments with 4 collinear points
-    private int N; // number of line segments with 4 collinear points
+    private PackedSegments lineSegments; // line segments with 4 collinear points
+    private LineSegment[] segmentArray;  // the segments as objects, built by segments()
 
     /**
      * Brute force approach, search all
@@ -34,9 +33,7 @@ public class BruteCollinearPoints {
     public BruteCollinearPoints(Point[] p) {
 
         points = p.clone();
-        //lineSegments = new ArrayList<LineSegment>();
-        ArrayList<LineSegment> tempLineSegment = new ArrayList<>();
-        N = 0;
+        PackedSegments.Builder tempLineSegment = new PackedSegments.Builder();
         if (points == null) throw new NullPointerException("Input array is null");
 
         for (int i = 0; i < points.length; i++) {
@@ -52,17 +49,14 @@ public class BruteCollinearPoints {
                         if (points[i].slopeTo(points[k]) == points[i].slopeTo(points[w])) {
                             Point[] temp = {points[i], points[j], points[k], points[w]};
                             Arrays.sort(temp, 0, temp.length);
-                            tempLineSegment.add(new LineSegment(temp[0], temp[temp.length - 1]));
+                            Point low = temp[0], high = temp[temp.length - 1];
+                            tempLineSegment.add(low.x(), low.y(), high.x(), high.y());
                         }
                     }
                 }
             }
         }
-        N = tempLineSegment.size();
-        lineSegments = new LineSegment[N];
-        for (int i = 0; i < N; i++) {
-            lineSegments[i] = tempLineSegment.get(i);
-        }
+        lineSegments = tempLineSegment.build();
     }
 
     /**
@@ -72,17 +66,40 @@ public class BruteCollinearPoints {
      * @return the number of line segments
      */
     public int numberOfSegments() {
-        return N;
+        return lineSegments.size();
     }
 
     /**
      *
-     * Return the array of line segments
+     * Return the array of line segments. The segments are built from the
+     * packed segments on the first call and kept; every call returns a new
+     * copy of the array, so the caller may change it freely.
      *
      * @return the array of line segments
      */
     public LineSegment[] segments() {
-        return lineSegments.clone();
+        if (segmentArray == null) segmentArray = lineSegments.toArray();
+        return segmentArray.clone();
+    }
+
+    /**
+     * Returns the line segments in their packed form, which is immutable
+     * and shared without copying.
+     *
+     * @return the packed line segments
+     */
+    public PackedSegments packedSegments() {
+        return lineSegments;
+    }
+
+    /**
+     * Visits the endpoints of all the line segments, without allocating.
+     *
+     * @param visitor the visitor
+     * @throws NullPointerException if visitor is null
+     */
+    public void forEachSegment(PackedSegments.SegmentVisitor visitor) {
+        lineSegments.forEachSegment(visitor);
     }
 
     // check if two points are equal
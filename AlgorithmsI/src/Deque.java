@@ -1,8 +1,11 @@
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * The <tt>Deque</tt> class implements a double-ended queue,
@@ -10,8 +13,11 @@ import java.util.NoSuchElementException;
  * supports adding and removing items from either the
  * front or the back of the data structure
  * <p>
- * The implementation uses a <em>DoublyLinkedList</em> and stores
- * a two virtual elements <em>pre</em> and <em>post</em>. It supports
+ * The implementation uses a circular resizing array: the items are
+ * stored from index <em>head</em> onwards, wrapping around the end of
+ * the array. The capacity is always a power of 2, doubled when the array
+ * is full and halved when it is one-quarter full, so each operation takes
+ * constant amortized time and no node is allocated per item. It supports
  * methods <em>addFirst</em> to add en element to the beginning of
  * the deque, <em>addLast</em> to add en element to the end of the
  * deque, and methods <em>removeFirst</em> and <em>removeLast</em>
@@ -20,25 +26,30 @@ import java.util.NoSuchElementException;
  * has methods to check if the deque is empty, return its size,
  * and iterate through its items
  * </p>
+ * <p>
+ * For batches of items, <em>addAllFirst</em> and <em>addAllLast</em>
+ * reserve capacity once and copy the whole batch, and <em>drainTo</em>
+ * moves up to a given number of items out of the front. The
+ * <em>forEach</em> method walks the array directly, without an iterator
+ * object, and <em>spliterator</em> splits the array so that the deque can
+ * feed a parallel stream. None of these may run while the deque is being
+ * modified.
+ * </p>
  *
  * @author Ali K Thabet
  **/
 public class Deque<Item> implements Iterable<Item> {
 
     private int N = 0;          // number of elements in deque
-    private Node<Item> pre;     // sentinel before first item
-    private Node<Item> post;    // sentinel after last item
+    private Item[] a;           // circular array of items, length a power of 2
+    private int head = 0;       // index of the first item
 
     /**
      * Initializes an empty deque
      */
     public Deque() {
-        pre = new Node<Item>();
-        post = new Node<Item>();
-        pre.next = post;
-        pre.prev = null;
-        post.prev = pre;
-        post.next = null;
+        // cast needed since no generic array creation in Java
+        a = (Item[]) new Object[2];
     }
 
     /**
@@ -101,11 +112,39 @@ public class Deque<Item> implements Iterable<Item> {
      * @throws NullPointerException if item is NULL
      */
     private void checkItem(Item item) {
-        if (item.equals(null)) {
+        if (item == null) {
             throw new java.lang.NullPointerException("Item provided is NULL");
         }
     }
 
+    // resize the underlying array, moving the first item to index 0
+    private void resize(int capacity) {
+        assert capacity >= N;
+        Item[] temp = (Item[]) new Object[capacity];
+        for (int i = 0; i < N; i++) {
+            temp[i] = a[(head + i) & (a.length - 1)];
+        }
+        a = temp;
+        head = 0;
+    }
+
+    // grow the array to the smallest power of 2 holding n items, if needed
+    private void ensureCapacity(int n) {
+        int capacity = a.length;
+        while (capacity < n) capacity *= 2;
+        if (capacity != a.length) resize(capacity);
+    }
+
+    // copy a batch of items, checking all of them before changing anything
+    private Object[] toCheckedArray(Collection<? extends Item> items) {
+        if (items == null) throw new NullPointerException("Collection provided is NULL");
+        Object[] batch = items.toArray();
+        for (Object item : batch) {
+            if (item == null) throw new NullPointerException("Item provided is NULL");
+        }
+        return batch;
+    }
+
     /**
      * Adds an item to the beginning of the deque
      *
@@ -114,13 +153,9 @@ public class Deque<Item> implements Iterable<Item> {
      */
     public void addFirst(Item item) {
         checkItem(item);
-        Node<Item> first = pre.next;
-        Node<Item> x = new Node<Item>();
-        x.item = item;
-        x.next = first;
-        x.prev = pre;
-        pre.next = x;
-        first.prev = x;
+        if (N == a.length) resize(2 * a.length);    // double size of array if necessary
+        head = (head - 1) & (a.length - 1);
+        a[head] = item;
         N++;
     }
 
@@ -132,16 +167,73 @@ public class Deque<Item> implements Iterable<Item> {
      */
     public void addLast(Item item) {
         checkItem(item);
-        Node<Item> last = post.prev;
-        Node<Item> x = new Node<Item>();
-        x.item = item;
-        x.next = post;
-        x.prev = last;
-        post.prev = x;
-        last.next = x;
+        if (N == a.length) resize(2 * a.length);    // double size of array if necessary
+        a[(head + N) & (a.length - 1)] = item;
         N++;
     }
 
+    /**
+     * Adds all the items of a collection to the beginning of the deque,
+     * keeping their order: the first item of the collection becomes the
+     * first item of the deque.
+     *
+     * @param items the items to add
+     * @throws NullPointerException if items or any of its items is NULL
+     */
+    public void addAllFirst(Collection<? extends Item> items) {
+        Object[] batch = toCheckedArray(items);
+        ensureCapacity(N + batch.length);
+        head = (head - batch.length) & (a.length - 1);
+        for (int i = 0; i < batch.length; i++) {
+            a[(head + i) & (a.length - 1)] = (Item) batch[i];
+        }
+        N += batch.length;
+    }
+
+    /**
+     * Adds all the items of a collection to the end of the deque,
+     * keeping their order: the last item of the collection becomes the
+     * last item of the deque.
+     *
+     * @param items the items to add
+     * @throws NullPointerException if items or any of its items is NULL
+     */
+    public void addAllLast(Collection<? extends Item> items) {
+        Object[] batch = toCheckedArray(items);
+        ensureCapacity(N + batch.length);
+        for (int i = 0; i < batch.length; i++) {
+            a[(head + N + i) & (a.length - 1)] = (Item) batch[i];
+        }
+        N += batch.length;
+    }
+
+    /**
+     * Removes up to max items from the beginning of the deque and adds
+     * them, in order, to the given collection.
+     *
+     * @param target the collection receiving the items
+     * @param max maximum number of items to move
+     * @return the number of items moved
+     * @throws NullPointerException if target is NULL
+     * @throws IllegalArgumentException if max is negative
+     */
+    public int drainTo(Collection<? super Item> target, int max) {
+        if (target == null) throw new NullPointerException("Collection provided is NULL");
+        if (max < 0) throw new IllegalArgumentException("Maximum " + max + " is negative");
+        int count = Math.min(max, N);
+        for (int i = 0; i < count; i++) {
+            target.add(a[head]);
+            a[head] = null;            // to avoid loitering
+            head = (head + 1) & (a.length - 1);
+            N--;
+        }
+        // shrink size of array once, if necessary
+        int capacity = a.length;
+        while (N > 0 && N <= capacity / 4) capacity /= 2;
+        if (capacity != a.length) resize(capacity);
+        return count;
+    }
+
     /**
      * Removes and returns the first item of the deque
      *
@@ -150,12 +242,12 @@ public class Deque<Item> implements Iterable<Item> {
      */
     public Item removeFirst() {
         if (isEmpty()) throw new NoSuchElementException("Deque underflow");
-        Node<Item> temp = pre.next;
-        Item item = temp.item;     // save item to return
-        pre.next = temp.next;                // delete first node
-        temp.next.prev = pre;
-        temp = null;
+        Item item = a[head];           // save item to return
+        a[head] = null;                // to avoid loitering
+        head = (head + 1) & (a.length - 1);
         N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4) resize(a.length / 2);
         return item;                   // return the saved item
     }
 
@@ -163,49 +255,110 @@ public class Deque<Item> implements Iterable<Item> {
      * Removes and returns the last item of the deque
      *
      * @return the last item of the deque
+     * @throws NoSuchElementException if this deque is empty
      */
     public Item removeLast() {
         if (isEmpty()) throw new NoSuchElementException("Deque underflow");
-        Node<Item> temp = post.prev;
-        Item item = temp.item;        // save item to return
-        post.prev = temp.prev;        // delete last node
-        temp.prev.next = post;
-        temp = null;
+        int last = (head + N - 1) & (a.length - 1);
+        Item item = a[last];           // save item to return
+        a[last] = null;                // to avoid loitering
         N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4) resize(a.length / 2);
         return item;                   // return the saved item
     }
 
     /**
      * Returns an iterator that iterates over the items
-     * in this deque in arbitrary order.
+     * in this deque from front to back.
      *
      * @return an iterator that iterates over the items
-     * in this deque in arbitrary order
+     * in this deque from front to back
      */
     public Iterator<Item> iterator() {
-        return new ListIterator<Item>(pre, post);
+        return new ArrayIterator();
     }
 
-    // helper linked list class
-    private static class Node<Item> {
-        private Item item;
-        private Node<Item> next;
-        private Node<Item> prev;
+    /**
+     * Performs the given action on each item of the deque,
+     * from front to back, without creating an iterator.
+     *
+     * @param action the action to perform
+     * @throws NullPointerException if action is NULL
+     */
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        if (action == null) throw new NullPointerException("Action provided is NULL");
+        int mask = a.length - 1;
+        for (int i = 0; i < N; i++) {
+            action.accept(a[(head + i) & mask]);
+        }
     }
 
-    // an iterator, doesn't implement remove() since it's optional
-    private class ListIterator<Item> implements Iterator<Item> {
-        private Node<Item> current;
-        private Node<Item> last;
+    /**
+     * Returns a spliterator over the items in this deque from front to back,
+     * which splits in halves of the array and reports its exact size.
+     *
+     * @return a spliterator over the items in this deque
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new ArraySpliterator(a, head, 0, N);
+    }
+
+    // a spliterator over positions lo to hi - 1, counted from head
+    private class ArraySpliterator implements Spliterator<Item> {
+        private final Item[] items;
+        private final int first;
+        private int lo;
+        private final int hi;
+
+        ArraySpliterator(Item[] items, int first, int lo, int hi) {
+            this.items = items;
+            this.first = first;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null) throw new NullPointerException("Action provided is NULL");
+            if (lo >= hi) return false;
+            action.accept(items[(first + lo++) & (items.length - 1)]);
+            return true;
+        }
 
-        ListIterator(Node<Item> prev, Node<Item> post) {
-            current = prev.next;
-            last = post;
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null) throw new NullPointerException("Action provided is NULL");
+            int mask = items.length - 1;
+            for (int i = lo; i < hi; i++) {
+                action.accept(items[(first + i) & mask]);
+            }
+            lo = hi;
         }
 
+        public Spliterator<Item> trySplit() {
+            int mid = (lo + hi) >>> 1;
+            if (mid <= lo) return null;
+            Spliterator<Item> prefix = new ArraySpliterator(items, first, lo, mid);
+            lo = mid;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return hi - lo;
+        }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private class ArrayIterator implements Iterator<Item> {
+        private int i = 0;
+
         public boolean hasNext() {
-            return !current.equals(last);
-            //return current != null;
+            return i < N;
         }
 
         public void remove() {
@@ -214,9 +367,7 @@ public class Deque<Item> implements Iterable<Item> {
 
         public Item next() {
             if (!hasNext()) throw new NoSuchElementException();
-            Item item = current.item;
-            current = current.next;
-            return item;
+            return a[(head + i++) & (a.length - 1)];
         }
     }
 }
@@ -0,0 +1,345 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The <tt>DoublePartition</tt> class implements the partitioning steps of
+ * <tt>Partition</tt>, and a quicksort and a quickselect built on them,
+ * for arrays of <tt>double</tt>. Items are compared directly, without
+ * boxing them or calling <em>compareTo</em>.
+ * <p>
+ * The <em>sort</em> operation is a quicksort with Dijkstra's 3-way
+ * partitioning, so runs of equal keys are never partitioned again. Pivots
+ * are the median of 3 items or Tukey's ninther, and small subarrays are
+ * insertion sorted. If the recursion gets deeper than 2 log N the
+ * subarray is heapsorted instead, so sorting takes O(N log N) time in the
+ * worst case.
+ * </p>
+ * <p>
+ * The <em>parallelSort</em> operation runs the same sort as fork/join
+ * tasks on the common <em>ForkJoinPool</em>, forking the parts smaller and
+ * greater than each pivot down to subarrays of <em>PARALLEL_CUTOFF</em>
+ * items, which are sorted sequentially.
+ * </p>
+ * <p>
+ * The <em>select</em> operation finds the <em>k</em>th smallest item with
+ * an introselect: a quickselect on the same pivots, which falls back on
+ * the median of medians of groups of 5 once it has partitioned 2 log N
+ * times without finishing. It takes linear time in the worst case.
+ * </p>
+ * <p>
+ * Items are ordered as by <em>Double.compare</em>: -0.0 comes before
+ * 0.0, and NaN after every other value. The NaNs are first moved to the
+ * end of the array, the other items are compared with <em>&lt;</em>, and
+ * the zeros are given their sign again at the end.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class DoublePartition {
+
+    private static final int INSERTION_CUTOFF = 12; // largest subarray that is insertion sorted
+    private static final int NINTHER_CUTOFF = 40;   // smallest subarray whose pivot is a ninther
+    private static final int PARALLEL_CUTOFF = 1 << 13; // largest subarray sorted sequentially
+
+    // this class should not be instantiated
+    private DoublePartition() { }
+
+    /**
+     * Partitions a[lo..hi] on the item a[lo], so that the items left of
+     * the returned index are no greater, and those right of it no smaller.
+     *
+     * @param a the array
+     * @param lo index of the first item
+     * @param hi index of the last item
+     * @return the final index of the pivot
+     */
+    public static int partition(double[] a, int lo, int hi) {
+        int i = lo, j = hi + 1;
+        double v = a[lo];
+        while (true) {
+            while (a[++i] < v) if (i == hi) break;
+            while (v < a[--j]) if (j == lo) break;
+            if (i >= j) break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+
+    /**
+     * Partitions a[lo..hi] on the item a[lo] into the items smaller
+     * than it, the items equal to it and the items greater than it.
+     *
+     * @param a the array
+     * @param lo index of the first item
+     * @param hi index of the last item
+     * @return the index after the last item equal to the pivot
+     */
+    public static int partitionThreeWay(double[] a, int lo, int hi) {
+        return (int) threeWay(a, lo, hi) + 1;
+    }
+
+    // Dijkstra's 3-way partitioning on a[lo], giving a[lo..lt-1] < v,
+    // a[lt..gt] == v and a[gt+1..hi] > v, and returning lt and gt packed
+    private static long threeWay(double[] a, int lo, int hi) {
+        int lt = lo, i = lo + 1, gt = hi;
+        double v = a[lo];
+        while (i <= gt) {
+            if      (a[i] < v) exch(a, lt++, i++);
+            else if (a[i] > v) exch(a, i, gt--);
+            else    i++;
+        }
+        return (long) lt << 32 | gt;
+    }
+
+    /**
+     * Sorts the array in ascending order.
+     *
+     * @param a the array
+     */
+    public static void sort(double[] a) {
+        sort(a, false);
+    }
+
+    /**
+     * Sorts the array in ascending order, on the threads
+     * of the common fork/join pool.
+     *
+     * @param a the array
+     */
+    public static void parallelSort(double[] a) {
+        sort(a, true);
+    }
+
+    // sort all the items except the NaNs with < and fix the sign of the zeros
+    private static void sort(double[] a, boolean parallel) {
+        int n = moveNaNsLast(a);
+        int negativeZeros = countNegativeZeros(a, n);
+        if (parallel) ForkJoinPool.commonPool().invoke(new SortTask(a, 0, n - 1, depthLimit(n)));
+        else          sort(a, 0, n - 1, depthLimit(n));
+        if (negativeZeros > 0) {
+            // the zeros are contiguous, starting after the negative items
+            int i = 0;
+            while (a[i] < 0.0) i++;
+            for (int j = 0; j < negativeZeros; j++) a[i + j] = -0.0;
+            for (i += negativeZeros; i < n && a[i] == 0.0; i++) a[i] = 0.0;
+        }
+    }
+
+    // sorts a[lo..hi], partitioning it and forking its parts while they are large
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] a;
+        private final int lo, hi, depth;
+
+        SortTask(double[] a, int lo, int hi, int depth) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo + 1 <= PARALLEL_CUTOFF || depth == 0) {
+                sort(a, lo, hi, depth);
+                return;
+            }
+            exch(a, lo, pivot(a, lo, hi));
+            long bounds = threeWay(a, lo, hi);
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+            invokeAll(new SortTask(a, lo, lt - 1, depth - 1), new SortTask(a, gt + 1, hi, depth - 1));
+        }
+    }
+
+    private static void sort(double[] a, int lo, int hi, int depth) {
+        while (hi - lo + 1 > INSERTION_CUTOFF) {
+            if (depth-- == 0) {
+                heapSort(a, lo, hi);
+                return;
+            }
+            exch(a, lo, pivot(a, lo, hi));
+            long bounds = threeWay(a, lo, hi);
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+            // recurse into the smaller side, loop on the larger one
+            if (lt - lo < hi - gt) {
+                sort(a, lo, lt - 1, depth);
+                lo = gt + 1;
+            } else {
+                sort(a, gt + 1, hi, depth);
+                hi = lt - 1;
+            }
+        }
+        insertionSort(a, lo, hi);
+    }
+
+    /**
+     * Rearranges the array so that a[k] is the kth smallest item, the
+     * items before it are no greater and the items after it no smaller,
+     * and returns that item.
+     *
+     * @param a the array
+     * @param k the rank of the item, starting at 0
+     * @return the kth smallest item
+     * @throws IndexOutOfBoundsException unless 0 <= k < a.length
+     */
+    public static double select(double[] a, int k) {
+        if (k < 0 || k >= a.length) {
+            throw new IndexOutOfBoundsException("index " + k + " is not between 0 and " + (a.length - 1));
+        }
+        int n = moveNaNsLast(a);
+        if (k >= n) return a[k];
+        int negativeZeros = countNegativeZeros(a, n);
+        select(a, 0, n - 1, k, depthLimit(n));
+        if (negativeZeros > 0 && a[k] == 0.0) {
+            // the zeros are the items equal to a[k], so the first ones
+            // by index are on its left and get the negative sign
+            for (int i = 0; i < n; i++) {
+                if (a[i] == 0.0) a[i] = negativeZeros-- > 0 ? -0.0 : 0.0;
+            }
+        }
+        return a[k];
+    }
+
+    // introselect of rank k in a[lo..hi], using the median of medians
+    // once budget quickselect partitions have been made
+    private static void select(double[] a, int lo, int hi, int k, int budget) {
+        while (hi - lo + 1 > INSERTION_CUTOFF) {
+            int p = budget-- > 0 ? pivot(a, lo, hi) : medianOfMedians(a, lo, hi);
+            exch(a, lo, p);
+            long bounds = threeWay(a, lo, hi);
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+            if      (k < lt) hi = lt - 1;
+            else if (k > gt) lo = gt + 1;
+            else    return;
+        }
+        insertionSort(a, lo, hi);
+    }
+
+    // index of an item of a[lo..hi] with at least 3/10 of the items
+    // on each side, found as the median of the medians of groups of 5
+    private static int medianOfMedians(double[] a, int lo, int hi) {
+        int m = lo;
+        for (int i = lo; i <= hi; i += 5) {
+            int end = Math.min(i + 4, hi);
+            insertionSort(a, i, end);
+            exch(a, m++, i + (end - i) / 2);
+        }
+        int median = lo + (m - 1 - lo) / 2;
+        select(a, lo, m - 1, median, 0);
+        return median;
+    }
+
+    // twice the floor of lg n, the depth allowed before falling back
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(n, 1)));
+    }
+
+    // index of the median of 3 items of a[lo..hi], or of the ninther for large subarrays
+    private static int pivot(double[] a, int lo, int hi) {
+        int n = hi - lo + 1;
+        int mid = lo + n / 2;
+        if (n < NINTHER_CUTOFF) return median3(a, lo, mid, hi);
+        int eps = n / 8;
+        int m1 = median3(a, lo, lo + eps, lo + eps + eps);
+        int m2 = median3(a, mid - eps, mid, mid + eps);
+        int m3 = median3(a, hi - eps - eps, hi - eps, hi);
+        return median3(a, m1, m2, m3);
+    }
+
+    // index of the median of a[i], a[j] and a[k]
+    private static int median3(double[] a, int i, int j, int k) {
+        return (a[i] < a[j] ?
+               (a[j] < a[k] ? j : a[i] < a[k] ? k : i) :
+               (a[k] < a[j] ? j : a[k] < a[i] ? k : i));
+    }
+
+    // sort a[lo..hi] by insertion, shifting larger items to the right
+    private static void insertionSort(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            double v = a[i];
+            int j = i;
+            while (j > lo && v < a[j - 1]) {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = v;
+        }
+    }
+
+    // heapsort a[lo..hi], with a max-heap rooted at lo
+    private static void heapSort(double[] a, int lo, int hi) {
+        int n = hi - lo + 1;
+        for (int k = n / 2 - 1; k >= 0; k--) sink(a, lo, k, n);
+        while (n > 1) {
+            exch(a, lo, lo + --n);
+            sink(a, lo, 0, n);
+        }
+    }
+
+    // move the item at heap index k down the heap of n items starting at lo
+    private static void sink(double[] a, int lo, int k, int n) {
+        double v = a[lo + k];
+        while (2 * k + 1 < n) {
+            int j = 2 * k + 1;
+            if (j + 1 < n && a[lo + j] < a[lo + j + 1]) j++;
+            if (!(v < a[lo + j])) break;
+            a[lo + k] = a[lo + j];
+            k = j;
+        }
+        a[lo + k] = v;
+    }
+
+    private static void exch(double[] a, int i, int j) {
+        double temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+
+    // move the NaNs to the end of the array and return the number of other items
+    private static int moveNaNsLast(double[] a) {
+        int n = a.length;
+        for (int i = n - 1; i >= 0; i--) {
+            if (Double.isNaN(a[i])) exch(a, i, --n);
+        }
+        return n;
+    }
+
+    // number of -0.0 items in a[0..n-1]
+    private static int countNegativeZeros(double[] a, int n) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (a[i] == 0.0 && Double.doubleToRawLongBits(a[i]) < 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Unit tests the <tt>DoublePartition</tt> data type: sorts random items
+     * and selects their median.
+     *
+     * @param args the number of items
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Random random = new Random(0);
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) a[i] = random.nextInt(n) / 8.0;
+        double[] sorted = a.clone();
+        Arrays.sort(sorted);
+
+        StdOut.println("median: " + select(a, n / 2) + ", expected " + sorted[n / 2]);
+        sort(a);
+        StdOut.println("sorted: " + Arrays.equals(a, sorted));
+        for (int i = 0; i < n; i++) a[i] = random.nextInt(n) / 8.0;
+        double[] parallel = a.clone();
+        Arrays.sort(a);
+        parallelSort(parallel);
+        StdOut.println("parallel sorted: " + Arrays.equals(a, parallel));
+    }
+}
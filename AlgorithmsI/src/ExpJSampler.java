@@ -0,0 +1,163 @@
+import java.util.SplittableRandom;
+
+/**
+ * The <tt>ExpJSampler</tt> class implements the sampling decisions of
+ * the A-ExpJ algorithm of Efraimidis and Spirakis, for the reservoirs
+ * that store the sampled items: <tt>WeightedReservoir</tt> for objects
+ * and <tt>LongReservoir</tt> for unboxed <tt>long</tt> values.
+ * <p>
+ * Each kept item has the key <em>u</em>^(1/<em>w</em>), for its weight
+ * <em>w</em> and a uniform <em>u</em>, and the sample is the <em>k</em>
+ * items of largest key, held in a binary min-heap of keys. Rather than
+ * drawing a key for every item, the sampler draws how much weight to skip
+ * before the next item that enters the sample. Keys are stored as their
+ * logarithm, so that small weights do not underflow.
+ * </p>
+ * <p>
+ * The sampler does not store the items: every heap entry holds the
+ * <em>slot</em> of its item, an index between 0 and <em>k</em> - 1 into
+ * the item array of the reservoir. Items never move between slots. The
+ * slots 0 to <em>size</em> - 1 are filled in order, and afterwards an
+ * item entering the sample takes the slot of the item it evicts.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+final class ExpJSampler {
+
+    /**
+     * Copies an item from a slot of another reservoir to a slot of this one.
+     */
+    interface SlotCopy {
+        void copy(int from, int to);
+    }
+
+    private final double[] keys;     // min-heap of the log of the keys of the sampled items
+    private final int[] slots;       // slot of the item of each heap entry
+    private final SplittableRandom random;
+    private int n = 0;               // number of items in the sample
+    private long seen = 0;           // number of items offered
+    private double skip;             // weight left to skip before the next kept item
+
+    /**
+     * Initializes an empty sample of k items with the given random seed.
+     *
+     * @param k number of items to sample
+     * @param seed the seed of the random stream
+     * @throws IllegalArgumentException if k <= 0
+     */
+    ExpJSampler(int k, long seed) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Sample size " + k + " is not greater than 0.");
+        }
+        keys = new double[k];
+        slots = new int[k];
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Returns the number of items in the sample.
+     */
+    int size() {
+        return n;
+    }
+
+    /**
+     * Returns the number of items offered so far.
+     */
+    long count() {
+        return seen;
+    }
+
+    // uniform random number in (0, 1]
+    private double uniform() {
+        return 1.0 - random.nextDouble();
+    }
+
+    /**
+     * Offers an item with the given weight.
+     *
+     * @param weight the weight of the item
+     * @return the slot in which to store the item, or -1 if it is not sampled
+     * @throws IllegalArgumentException unless weight is positive and finite
+     */
+    int offer(double weight) {
+        if (!(weight > 0 && weight < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Weight " + weight + " is not positive and finite.");
+        }
+        seen++;
+        if (n < keys.length) {
+            int slot = insert(Math.log(uniform()) / weight);
+            if (n == keys.length) skip = Math.log(uniform()) / keys[0];
+            return slot;
+        }
+        skip -= weight;
+        if (skip > 0) return -1;
+
+        // the new key is drawn conditioned on beating the smallest one
+        double t = Math.exp(weight * keys[0]);
+        double r = t + (1.0 - t) * uniform();
+        int slot = replaceMin(Math.log(r) / weight);
+        skip = Math.log(uniform()) / keys[0];
+        return slot;
+    }
+
+    /**
+     * Merges the sample of another sampler of the same size into this
+     * one, which then holds a sample of both streams. The other sampler
+     * must have sampled a disjoint stream and is left unchanged.
+     *
+     * @param that the other sampler
+     * @param copy copies each item that enters this sample into its slot
+     * @throws IllegalArgumentException if the samplers have different sizes
+     */
+    void merge(ExpJSampler that, SlotCopy copy) {
+        if (that.keys.length != keys.length) {
+            throw new IllegalArgumentException("Sample sizes " + keys.length
+                    + " and " + that.keys.length + " differ.");
+        }
+        for (int i = 0; i < that.n; i++) {
+            int slot;
+            if (n < keys.length)             slot = insert(that.keys[i]);
+            else if (that.keys[i] > keys[0]) slot = replaceMin(that.keys[i]);
+            else                             continue;
+            copy.copy(that.slots[i], slot);
+        }
+        seen += that.seen;
+        // the skip only depends on the smallest key, draw it again
+        if (n == keys.length) skip = Math.log(uniform()) / keys[0];
+    }
+
+    // add a key to the heap, which is not full, in the next free slot
+    private int insert(double key) {
+        int slot = n;
+        int i = n++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= key) break;
+            keys[i] = keys[parent];
+            slots[i] = slots[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        slots[i] = slot;
+        return slot;
+    }
+
+    // replace the smallest key, which is at the root, reusing its slot
+    private int replaceMin(double key) {
+        int slot = slots[0];
+        int i = 0;
+        while (2 * i + 1 < n) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && keys[child + 1] < keys[child]) child++;
+            if (key <= keys[child]) break;
+            keys[i] = keys[child];
+            slots[i] = slots[child];
+            i = child;
+        }
+        keys[i] = key;
+        slots[i] = slot;
+        return slot;
+    }
+}
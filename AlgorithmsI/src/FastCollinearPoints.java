@@ -5,6 +5,9 @@ import edu.princeton.cs.algs4.Stopwatch;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * The <tt>FastCollinearPoints</tt> class implements
@@ -12,72 +15,359 @@ import java.util.Arrays;
  * 4 collinear points. The fast implementation uses
  * sorting to optimize the search.
  * <p>
- * The implementation uses stores an array of points in
- * <em>points</em> and finds all line segments containing
- * 4 collinear points. The line segments are stored in
- * <em>lineSegments</em>
+ * The implementation sorts a copy of the points once, in their natural
+ * order, and packs their coordinates into the arrays <em>xs</em> and
+ * <em>ys</em>. For every anchor point it fills a reusable array with
+ * exact keys of the slopes to all the other points, and sorts it together
+ * with the indices of those points with an LSD radix sort, which only has
+ * to bring equal slopes together. When all the coordinates are within
+ * 2^25 of each other, the key is the bit pattern of the quotient dy/dx,
+ * which is exact at that size; otherwise it is the reduced fraction of
+ * <em>Point.slopeKey</em>. When the points are 2^31 or more apart, the
+ * terms of a reduced slope no longer fit in one key: the slopes are
+ * sorted by denominator and then by numerator, which groups them just as
+ * well since the radix sort is stable. A run of 3 or more equal slopes is
+ * a line through the anchor, which is reported only when the anchor is the
+ * smallest point of the line. Apart from the lines found, the anchor
+ * passes allocate nothing.
+ * </p>
+ * <p>
+ * Every line found is kept in a <tt>LineRegistry</tt>, with all its points,
+ * so <em>linePoints</em> gives the full members of a line and not only the
+ * ends of its segment. The anchors are scanned in natural order, so by the
+ * time an anchor is scanned every line through it that has a smaller point
+ * is already registered. The points of those lines are left out of the
+ * anchor's pass, which has no duplicate subsegment left to sort or scan: on
+ * inputs where many points share a few lines, most anchors have almost
+ * nothing to sort. The line segments are stored in <em>lineSegments</em>,
+ * packed as the coordinates of their endpoints
+ * </p>
+ * <p>
+ * The anchors are independent, so they can also be scanned in parallel
+ * on a <em>ForkJoinPool</em>: every leaf task scans a range of anchors
+ * with the scratch arrays of its worker thread, and the lines of the
+ * ranges are concatenated in anchor order, which gives the same result for
+ * any number of threads. The tasks cannot see the lines of each other, so
+ * they scan every point and only keep the lines whose smallest point is
+ * the anchor; the lines are registered once the tasks are done.
  * </p>
  *
  * @author Ali K Thabet
  **/
 public class FastCollinearPoints {
 
-    private Point[] points; // array of all points
-    private LineSegment[] lineSegments; // array of line segments with 4 collinear points
-    private int N; // number of line segments with 4 collinear points
+    private static final int DIGITS = 8; // 8-bit digits of a key, for the radix sort
+    private static final long NARROW = 1L << 25; // spread below which quotients are exact keys
+    private static final long VERTICAL = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    private Point[] points; // array of all points, in natural order
+    private int[] xs;       // x-coordinates of the points
+    private int[] ys;       // y-coordinates of the points
+    private boolean narrow; // whether quotients are exact slope keys for these points
+    private boolean wide;   // whether slopes are keyed by numerator and denominator
+    private LineRegistry registry = new LineRegistry(); // lines found, with all their points
+    private PackedSegments lineSegments; // line segments with 4 collinear points
+    private LineSegment[] segmentArray;  // the segments as objects, built by segments()
+    private ThreadLocal<Scratch> scratch; // scratch arrays of each worker thread
 
     /**
      * Fast collinear search method
      * using sorting
      *
      * @param p array of input points
+     * @throws NullPointerException if p or any of its points is null
+     * @throws IllegalArgumentException if two points are equal
      */
     public FastCollinearPoints(Point[] p) {
-        points = p.clone();
-        ArrayList<LineSegment> tempLineSegment = new ArrayList<>();
-        N = 0;
-
-        if (points == null) throw new NullPointerException("Input array is null");
+        this(p, 1);
+    }
 
-        Point[] aux;
-        Arrays.sort(points);
+    /**
+     * Fast collinear search method using sorting, on the given number
+     * of threads. The anchors are split into ranges handled by the tasks
+     * of a fork/join pool, with scratch arrays per worker thread, and the
+     * segments are returned in the same order as with one thread.
+     * Only the sequential scan skips the points of the lines already found.
+     *
+     * @param p array of input points
+     * @param threads number of worker threads
+     * @throws NullPointerException if p or any of its points is null
+     * @throws IllegalArgumentException if two points are equal or threads <= 0
+     */
+    public FastCollinearPoints(Point[] p, int threads) {
+        if (p == null) throw new NullPointerException("Input array is null");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads " + threads + " is not greater than 0.");
+        }
+        points = p.clone();
         for (int i = 0; i < points.length; i++) {
             checkPoint(i);
+        }
+        Arrays.sort(points);
 
-            aux = points.clone();
+        int n = points.length;
+        xs = new int[n];
+        ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (i > 0) checkPoints(i - 1, i);
+            xs[i] = points[i].x();
+            ys[i] = points[i].y();
+        }
+        long spread = spread(xs, ys);
+        narrow = isNarrow(spread);
+        wide = isWide(spread);
 
-            Arrays.sort(aux, points[i].slopeOrder());
+        if (threads == 1) {
+            scanAnchors(0, n, null, new Scratch(n, wide));
+        } else {
+            ArrayList<int[]> lines;
+            scratch = ThreadLocal.withInitial(() -> new Scratch(n, wide));
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                int grain = Math.max(1, n / (4 * threads)); // anchors per leaf task
+                lines = pool.invoke(new AnchorTask(0, n, grain));
+            } finally {
+                pool.shutdown();
+                scratch = null;
+            }
+            for (int[] line : lines) {
+                register(line);
+            }
+        }
 
-            int prev = aux.length - 1, curr = prev - 1;
-            double prevSlope = points[i].slopeTo(aux[prev]);
-            double currSlope;
-            while (curr >= 0) {
-                currSlope = points[i].slopeTo(aux[curr]);
-                if (points[i].slopeTo(aux[curr + 1]) == Double.NEGATIVE_INFINITY) throw new IllegalArgumentException();
+        PackedSegments.Builder tempLineSegment = new PackedSegments.Builder();
+        for (int k = 0; k < registry.size(); k++) {
+            int low = registry.member(k, 0), high = registry.member(k, registry.size(k) - 1);
+            tempLineSegment.add(xs[low], ys[low], xs[high], ys[high]);
+        }
+        lineSegments = tempLineSegment.build();
+    }
 
-                if (prevSlope == currSlope) {
-                    curr--;
-                }
-                else {
-                    if (prev - curr > 2) {
+    // scratch arrays of an anchor scan, reused for every anchor
+    private static final class Scratch {
+        final long[] slopes;  // slope keys from the anchor
+        final int[] ids;      // index of the point of each slope
+        final long[] temp;
+        final int[] idTemp;
+        final int[] count = new int[DIGITS * 257];
+        final int[] marks;    // anchor + 1 whose registered lines hold each point
+        final long[] dys;     // slope numerator of each point, for wide points
+        final long[] dxs;     // slope denominator of each point, for wide points
+
+        Scratch(int n, boolean wide) {
+            slopes = new long[n];
+            ids = new int[n];
+            temp = new long[n];
+            idTemp = new int[n];
+            marks = new int[n];
+            dys = wide ? new long[n] : null;
+            dxs = wide ? new long[n] : null;
+        }
+    }
 
-                        if (points[i].compareTo(aux[curr + 1]) < 0) {
-                            tempLineSegment.add(new LineSegment(points[i], aux[prev]));
-                        }
+    // find the lines whose smallest point is one of the anchors lo to hi - 1,
+    // as arrays of point indices in natural order; they are registered at once
+    // when lines is null, and added to lines otherwise
+    private void scanAnchors(int lo, int hi, List<int[]> lines, Scratch scratch) {
+        int n = points.length;
+        long[] slopes = scratch.slopes;
+        int[] ids = scratch.ids;
+        int[] marks = scratch.marks;
+        long[] dys = scratch.dys, dxs = scratch.dxs;
+        for (int i = lo; i < hi; i++) {
+            // mark the points of the lines through the anchor already found
+            if (lines == null) {
+                for (int e = registry.firstEntry(i); e >= 0; e = registry.nextEntry(e)) {
+                    int line = registry.entryLine(e);
+                    for (int k = 0; k < registry.size(line); k++) {
+                        marks[registry.member(line, k)] = i + 1;
                     }
-                    prev = curr;
-                    prevSlope = currSlope;
-                    curr--;
+                }
+            }
+
+            int m = 0;
+            for (int j = 0; j < n; j++) {
+                if (j == i || marks[j] == i + 1) continue;
+                if (wide) {
+                    dys[j] = Point.slopeNumerator(xs[i], ys[i], xs[j], ys[j]);
+                    dxs[j] = Point.slopeDenominator(xs[i], ys[i], xs[j], ys[j]);
+                    slopes[m] = dxs[j];
+                } else {
+                    slopes[m] = slopeKey(xs[i], ys[i], xs[j], ys[j], narrow);
+                }
+                ids[m++] = j;
+            }
+            radixSort(slopes, ids, scratch.temp, scratch.idTemp, scratch.count, m);
+            if (wide) {
+                // sort again by numerator, the denominators stay in order
+                for (int k = 0; k < m; k++) {
+                    slopes[k] = dys[ids[k]];
+                }
+                radixSort(slopes, ids, scratch.temp, scratch.idTemp, scratch.count, m);
+            }
+
+            // scan the runs of equal slopes, whose indices are increasing
+            // since the radix sort is stable
+            for (int first = 0, last; first < m; first = last) {
+                for (last = first + 1; last < m && slopes[last] == slopes[first]
+                        && (!wide || dxs[ids[last]] == dxs[ids[first]]); last++) { }
+                if (last - first >= 3 && i < ids[first]) {
+                    int[] line = new int[last - first + 1];
+                    line[0] = i;
+                    System.arraycopy(ids, first, line, 1, last - first);
+                    if (lines == null) register(line);
+                    else               lines.add(line);
                 }
             }
         }
+    }
 
-        N = tempLineSegment.size();
-        lineSegments = new LineSegment[N];
-        for (int i = 0; i < N; i++) {
-            lineSegments[i] = tempLineSegment.get(i);
+    // add a line, given by its point indices in natural order, to the registry
+    private void register(int[] line) {
+        registry.add(xs[line[0]], ys[line[0]], xs[line[1]], ys[line[1]], line, 0, line.length);
+    }
+
+    // scans anchors lo to hi - 1, splitting the range until it is small
+    // enough, and returns their lines in anchor order
+    private class AnchorTask extends RecursiveTask<ArrayList<int[]>> {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi, grain;
+
+        AnchorTask(int lo, int hi, int grain) {
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected ArrayList<int[]> compute() {
+            if (hi - lo <= grain) {
+                ArrayList<int[]> lines = new ArrayList<>();
+                scanAnchors(lo, hi, lines, scratch.get());
+                return lines;
+            }
+            int mid = lo + (hi - lo) / 2;
+            AnchorTask left = new AnchorTask(lo, mid, grain);
+            left.fork();
+            ArrayList<int[]> lines = new AnchorTask(mid, hi, grain).compute();
+            ArrayList<int[]> leftLines = left.join();
+            leftLines.addAll(lines);
+            return leftLines;
+        }
+    }
+
+    /**
+     * Returns the spread of the points: the largest difference between
+     * two of their <em>x</em>-coordinates or two of their <em>y</em>-coordinates.
+     *
+     * @param xs x-coordinates of the points
+     * @param ys y-coordinates of the points
+     * @return the spread of the points, 0 if there are none
+     */
+    static long spread(int[] xs, int[] ys) {
+        if (xs.length == 0) return 0;
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        return spread(minX, maxX, minY, maxY);
+    }
+
+    /**
+     * Returns the spread of the points of the given bounding box.
+     *
+     * @param minX the smallest <em>x</em>-coordinate
+     * @param maxX the largest <em>x</em>-coordinate
+     * @param minY the smallest <em>y</em>-coordinate
+     * @param maxY the largest <em>y</em>-coordinate
+     * @return the larger of maxX - minX and maxY - minY
+     */
+    static long spread(int minX, int maxX, int minY, int maxY) {
+        return Math.max((long) maxX - minX, (long) maxY - minY);
+    }
+
+    /**
+     * Checks if points of the given spread are narrow: within 2^25 of each
+     * other, so that the quotients dy/dx are exact slope keys.
+     *
+     * @param spread the spread of the points
+     * @return <tt>true</tt> if the points are narrow, and <tt>false</tt> otherwise
+     */
+    static boolean isNarrow(long spread) {
+        return spread < NARROW;
+    }
+
+    /**
+     * Checks if points of the given spread are wide: 2^31 or more apart,
+     * so that <em>Point.slopeKey</em> may not tell their slopes apart, and
+     * the exact key of a slope is its numerator and denominator.
+     *
+     * @param spread the spread of the points
+     * @return <tt>true</tt> if the points are wide, and <tt>false</tt> otherwise
+     */
+    static boolean isWide(long spread) {
+        return spread > Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns a key of the slope between two distinct points, equal for
+     * equal slopes only unless the points are wide: the bits of the
+     * quotient dy/dx if the points are narrow, which makes it exact since
+     * the quotients of distinct fractions with terms below 2^25 differ by
+     * more than one ulp, and <em>Point.slopeKey</em> otherwise.
+     *
+     * @param x0 the <em>x</em>-coordinate of the first point
+     * @param y0 the <em>y</em>-coordinate of the first point
+     * @param x1 the <em>x</em>-coordinate of the second point
+     * @param y1 the <em>y</em>-coordinate of the second point
+     * @param narrow whether all the points are narrow
+     * @return the slope key
+     */
+    static long slopeKey(int x0, int y0, int x1, int y1, boolean narrow) {
+        if (!narrow)  return Point.slopeKey(x0, y0, x1, y1);
+        if (x0 == x1) return VERTICAL;
+        if (y0 == y1) return 0L;      // +0.0, whatever the sign of dx
+        return Double.doubleToRawLongBits((double) (y1 - y0) / (x1 - x0));
+    }
+
+    // LSD radix sort of keys[0..n-1], as unsigned 64-bit integers, moving
+    // ids[0..n-1] along; temp and idTemp are scratch arrays of length n or more
+    private static void radixSort(long[] keys, int[] ids, long[] temp, int[] idTemp,
+                                  int[] count, int n) {
+        // count the 8-bit digits of all the passes at once, 257 counters per pass
+        Arrays.fill(count, 0);
+        for (int i = 0; i < n; i++) {
+            long key = keys[i];
+            for (int d = 0; d < DIGITS; d++) {
+                count[d * 257 + (int) (key >>> (d << 3) & 0xFF) + 1]++;
+            }
+        }
+
+        long[] from = keys, to = temp;
+        int[] fromIds = ids, toIds = idTemp;
+        for (int d = 0; d < DIGITS; d++) {
+            int base = d * 257, shift = d << 3;
+            // skip the digits shared by all the keys
+            if (count[base + (int) (from[0] >>> shift & 0xFF) + 1] == n) continue;
+            for (int r = 0; r < 256; r++) {
+                count[base + r + 1] += count[base + r];
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = count[base + (int) (from[i] >>> shift & 0xFF)]++;
+                to[slot] = from[i];
+                toIds[slot] = fromIds[i];
+            }
+            long[] keySwap = from; from = to; to = keySwap;
+            int[] idSwap = fromIds; fromIds = toIds; toIds = idSwap;
+        }
+        if (from != keys) {
+            System.arraycopy(from, 0, keys, 0, n);
+            System.arraycopy(fromIds, 0, ids, 0, n);
         }
-        tempLineSegment.clear();
     }
 
     private void printSlopes(Point[] a, Point p) {
@@ -99,17 +389,77 @@ public class FastCollinearPoints {
      * @return the number of line segments
      */
     public int numberOfSegments() {
-        return N;
+        return lineSegments.size();
     }
 
     /**
      *
-     * Return the array of line segments
+     * Return the array of line segments. The segments are built from the
+     * packed segments on the first call and kept; every call returns a new
+     * copy of the array, so the caller may change it freely.
      *
      * @return the array of line segments
      */
     public LineSegment[] segments() {
-        return lineSegments.clone();
+        if (segmentArray == null) segmentArray = lineSegments.toArray();
+        return segmentArray.clone();
+    }
+
+    /**
+     * Returns the line segments in their packed form, which is immutable
+     * and shared without copying.
+     *
+     * @return the packed line segments
+     */
+    public PackedSegments packedSegments() {
+        return lineSegments;
+    }
+
+    /**
+     * Visits the endpoints of all the line segments, without allocating.
+     *
+     * @param visitor the visitor
+     * @throws NullPointerException if visitor is null
+     */
+    public void forEachSegment(PackedSegments.SegmentVisitor visitor) {
+        lineSegments.forEachSegment(visitor);
+    }
+
+    /**
+     * Returns all the points of the line of a segment, in natural order.
+     * The first and last points are the ends of the segment.
+     *
+     * @param k index of the segment in <em>segments</em>
+     * @return the points of the line
+     * @throws IndexOutOfBoundsException unless 0 <= k < numberOfSegments()
+     */
+    public Point[] linePoints(int k) {
+        if (k < 0 || k >= registry.size()) {
+            throw new IndexOutOfBoundsException("index " + k + " is not between 0 and "
+                    + (registry.size() - 1));
+        }
+        Point[] line = new Point[registry.size(k)];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = points[registry.member(k, i)];
+        }
+        return line;
+    }
+
+    /**
+     * Returns all the points of the segment of the line through two
+     * points, in natural order. The two points need not be input points.
+     *
+     * @param p a point of the line
+     * @param q another point of the line
+     * @return the points of the line, or an empty array if no segment lies on it
+     * @throws NullPointerException if p or q is null
+     * @throws IllegalArgumentException if p and q are equal
+     */
+    public Point[] linePoints(Point p, Point q) {
+        if (p == null || q == null) throw new NullPointerException("Point provided is NULL");
+        if (p.compareTo(q) == 0) throw new IllegalArgumentException("Points " + p + " and " + q + " are equal");
+        int line = registry.find(p.x(), p.y(), q.x(), q.y());
+        return line < 0 ? new Point[0] : linePoints(line);
     }
 
     // check if two points are equal
@@ -165,6 +515,17 @@ public class FastCollinearPoints {
         for (LineSegment segment : lineSegments2) {
             StdOut.println(segment);
         }
+
+        // points across the whole int range, with 3 lines, and 3 slopes
+        // from the corner whose terms take 32 bits
+        in = new In("collinear/extreme14.txt");
+        points = new Point[in.readInt()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(in.readInt(), in.readInt());
+        }
+        for (LineSegment segment : new FastCollinearPoints(points).segments()) {
+            StdOut.println(segment);
+        }
 //        // draw the points
 //        StdDraw.show(0);
 //        StdDraw.setXscale(0, 32768);
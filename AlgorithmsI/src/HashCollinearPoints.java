@@ -0,0 +1,198 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+/**
+ * The <tt>HashCollinearPoints</tt> class implements
+ * an algorithm to find line segments of at least
+ * 4 collinear points. It finds the same maximal segments
+ * as <tt>FastCollinearPoints</tt>, using hashing instead
+ * of sorting, in expected time proportional to N^2.
+ * <p>
+ * The implementation sorts a copy of the points once, in their natural
+ * order, and packs their coordinates into the arrays <em>xs</em> and
+ * <em>ys</em>. For every anchor point it buckets the other points by the
+ * exact key of their slope to the anchor (see
+ * <em>FastCollinearPoints.slopeKey</em>), in an open addressing hash table
+ * of primitive arrays with linear probing. When the points are 2^31 or
+ * more apart, that key may not tell their slopes apart, and the table is
+ * keyed by the numerator and denominator of the reduced slope instead. Each bucket keeps the number of
+ * points with that slope, and the first and last of them, which are the
+ * smallest and the largest since the points are visited in order. A bucket
+ * of 3 or more points is a line through the anchor, which is reported as a
+ * segment only when the anchor is the smallest point of the line.
+ * </p>
+ * <p>
+ * The table is allocated once, with at least twice as many slots as
+ * points, and is never cleared: every slot is stamped with the anchor that
+ * last used it, and slots with an older stamp count as empty. Apart from
+ * the segments found, the anchor passes allocate nothing. The segments
+ * are packed as the coordinates of their endpoints in a
+ * <tt>PackedSegments</tt>.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class HashCollinearPoints {
+
+    private Point[] points; // array of all points, in natural order
+    private int[] xs;       // x-coordinates of the points
+    private int[] ys;       // y-coordinates of the points
+    private PackedSegments lineSegments; // line segments with 4 collinear points
+    private LineSegment[] segmentArray;  // the segments as objects, built by segments()
+
+    /**
+     * Collinear search method using hashing
+     *
+     * @param p array of input points
+     * @throws NullPointerException if p or any of its points is null
+     * @throws IllegalArgumentException if two points are equal
+     */
+    public HashCollinearPoints(Point[] p) {
+        if (p == null) throw new NullPointerException("Input array is null");
+        points = p.clone();
+        for (int i = 0; i < points.length; i++) {
+            checkPoint(i);
+        }
+        Arrays.sort(points);
+
+        int n = points.length;
+        xs = new int[n];
+        ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (i > 0) checkPoints(i - 1, i);
+            xs[i] = points[i].x();
+            ys[i] = points[i].y();
+        }
+        long spread = FastCollinearPoints.spread(xs, ys);
+        boolean narrow = FastCollinearPoints.isNarrow(spread);
+        boolean wide = FastCollinearPoints.isWide(spread);
+
+        // hash table of slopes, reused for every anchor
+        int capacity = Integer.highestOneBit(Math.max(2, 2 * n - 1)) << 1;
+        int mask = capacity - 1;
+        int shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        long[] keys = new long[capacity];   // slope key, or numerator for wide points, of each slot
+        long[] dxs = new long[capacity];    // denominator for wide points, 0 otherwise
+        int[] stamps = new int[capacity];   // anchor + 1 that last used each slot
+        int[] counts = new int[capacity];   // number of points with the slope
+        int[] firsts = new int[capacity];   // smallest point with the slope
+        int[] lasts = new int[capacity];    // largest point with the slope
+        int[] used = new int[n];            // slots used by the anchor, in order
+
+        PackedSegments.Builder tempLineSegment = new PackedSegments.Builder();
+        for (int i = 0; i < n; i++) {
+            int stamp = i + 1;
+            int size = 0;
+            for (int j = 0; j < n; j++) {
+                if (j == i) continue;
+                long key, dx = 0;
+                if (wide) {
+                    key = Point.slopeNumerator(xs[i], ys[i], xs[j], ys[j]);
+                    dx = Point.slopeDenominator(xs[i], ys[i], xs[j], ys[j]);
+                } else {
+                    key = FastCollinearPoints.slopeKey(xs[i], ys[i], xs[j], ys[j], narrow);
+                }
+                int slot = (int) ((key * 0x9E3779B97F4A7C15L ^ dx * 0xC2B2AE3D27D4EB4FL) >>> shift);
+                while (stamps[slot] == stamp && (keys[slot] != key || dxs[slot] != dx)) {
+                    slot = (slot + 1) & mask;
+                }
+                if (stamps[slot] != stamp) {
+                    stamps[slot] = stamp;
+                    keys[slot] = key;
+                    dxs[slot] = dx;
+                    counts[slot] = 0;
+                    firsts[slot] = j;
+                    used[size++] = slot;
+                }
+                counts[slot]++;
+                lasts[slot] = j;
+            }
+
+            for (int k = 0; k < size; k++) {
+                int slot = used[k];
+                if (counts[slot] >= 3 && i < firsts[slot]) {
+                    int last = lasts[slot];
+                    tempLineSegment.add(xs[i], ys[i], xs[last], ys[last]);
+                }
+            }
+        }
+
+        lineSegments = tempLineSegment.build();
+    }
+
+    /**
+     *
+     * Return the number of line segments
+     *
+     * @return the number of line segments
+     */
+    public int numberOfSegments() {
+        return lineSegments.size();
+    }
+
+    /**
+     *
+     * Return the array of line segments. The segments are built from the
+     * packed segments on the first call and kept; every call returns a new
+     * copy of the array, so the caller may change it freely.
+     *
+     * @return the array of line segments
+     */
+    public LineSegment[] segments() {
+        if (segmentArray == null) segmentArray = lineSegments.toArray();
+        return segmentArray.clone();
+    }
+
+    /**
+     * Returns the line segments in their packed form, which is immutable
+     * and shared without copying.
+     *
+     * @return the packed line segments
+     */
+    public PackedSegments packedSegments() {
+        return lineSegments;
+    }
+
+    /**
+     * Visits the endpoints of all the line segments, without allocating.
+     *
+     * @param visitor the visitor
+     * @throws NullPointerException if visitor is null
+     */
+    public void forEachSegment(PackedSegments.SegmentVisitor visitor) {
+        lineSegments.forEachSegment(visitor);
+    }
+
+    // check if two points are equal
+    private void checkPoints(int i, int j) {
+        if (points[i].compareTo(points[j]) == 0) {
+            throw new IllegalArgumentException("Points at " + i + " and " + j + " are equal");
+        }
+    }
+
+    // check if point is null
+    private void checkPoint(int i) {
+        if (points[i] == null) throw new NullPointerException("Null item at location " + i);
+    }
+
+    public static void main(String[] args) {
+        // read the N points from a file
+        String fileName = args.length > 0 ? args[0] : "collinear/input8.txt";
+        In in = new In(fileName);
+        int N = in.readInt();
+        Point[] points = new Point[N];
+        for (int i = 0; i < N; i++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            points[i] = new Point(x, y);
+        }
+
+        HashCollinearPoints collinear = new HashCollinearPoints(points);
+        StdOut.println(collinear.numberOfSegments());
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
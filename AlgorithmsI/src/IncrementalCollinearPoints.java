@@ -0,0 +1,323 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+/**
+ * The <tt>IncrementalCollinearPoints</tt> class maintains the line
+ * segments of at least 4 collinear points of a set of points that grows
+ * one point at a time. After every insertion it holds the same maximal
+ * segments as <tt>FastCollinearPoints</tt> on all the points added so far,
+ * and it reports each segment that is formed or extended by the new point
+ * to a <tt>SegmentListener</tt>.
+ * <p>
+ * Only the lines through the new point can change, so <em>add</em> buckets
+ * the points already added by the exact key of their slope to the new point
+ * (see <em>FastCollinearPoints.slopeKey</em>), in an open addressing hash
+ * table with linear probing, as <tt>HashCollinearPoints</tt> does for one
+ * anchor, and by the numerator and denominator of the reduced slope once
+ * the points are 2^31 or more apart. Each bucket chains its points through an array of links. A
+ * bucket of 3 or more points is a line through the new point: it is looked
+ * up in a <tt>LineRegistry</tt> by two of its points, and either
+ * extended with the new point or registered as a new line. An insertion
+ * takes expected time linear in the number of points, and allocates only
+ * for the lines that change and when the arrays grow.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class IncrementalCollinearPoints {
+
+    /**
+     * The change of a line segment reported to a <tt>SegmentListener</tt>.
+     */
+    public enum Event {
+        /** A new line of 4 points, formed by the added point. */
+        FORMED,
+        /** An existing line, which gained the added point. */
+        EXTENDED
+    }
+
+    /**
+     * Receives the line segments changed by the insertion of a point.
+     */
+    public interface SegmentListener {
+        /**
+         * Called once for every line through the added point that
+         * has at least 4 points.
+         *
+         * @param event whether the line is new or was extended
+         * @param line index of the line, as in <em>linePoints</em>
+         * @param segment the segment of the line, after the insertion
+         */
+        void segmentChanged(Event event, int line, LineSegment segment);
+    }
+
+    private final SegmentListener listener; // receives the changes, or null
+    private final LineRegistry registry = new LineRegistry(); // lines of 4 or more points
+
+    private int n = 0;                          // number of points
+    private Point[] points = new Point[16];     // points, in order of insertion
+    private int[] xs = new int[16];             // x-coordinates of the points
+    private int[] ys = new int[16];             // y-coordinates of the points
+    private int[] lows = new int[4];            // smallest point of each line
+    private int[] highs = new int[4];           // largest point of each line
+    private int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+    private int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+
+    // hash table of slopes to the added point, reused for every insertion
+    private int shift = 64 - 5;
+    private long[] keys = new long[32];         // slope key, or numerator for wide points, of each slot
+    private long[] dxs = new long[32];          // denominator for wide points, 0 otherwise
+    private int[] stamps = new int[32];         // pass that last used each slot
+    private int[] counts = new int[32];         // number of points with the slope
+    private int[] heads = new int[32];          // last point with the slope
+    private int[] links = new int[16];          // previous point with the same slope
+    private int[] used = new int[16];           // slots used by the insertion, in order
+    private int pass = 0;                       // number of insertions tried, as a stamp
+
+    /**
+     * Initializes an empty set of points, without listener.
+     */
+    public IncrementalCollinearPoints() {
+        this(null);
+    }
+
+    /**
+     * Initializes an empty set of points.
+     *
+     * @param listener receives the segments formed or extended by each
+     *                 insertion, or null
+     */
+    public IncrementalCollinearPoints(SegmentListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a point, and updates the lines through it.
+     *
+     * @param p the point
+     * @return the number of segments formed or extended by the point
+     * @throws NullPointerException if p is null
+     * @throws IllegalArgumentException if p was already added
+     */
+    public int add(Point p) {
+        if (p == null) throw new NullPointerException("Point provided is NULL");
+        int x = p.x(), y = p.y();
+        int loX = Math.min(minX, x), hiX = Math.max(maxX, x);
+        int loY = Math.min(minY, y), hiY = Math.max(maxY, y);
+        long spread = FastCollinearPoints.spread(loX, hiX, loY, hiY);
+        boolean narrow = FastCollinearPoints.isNarrow(spread);
+        boolean wide = FastCollinearPoints.isWide(spread);
+        if (n == points.length) resize(2 * n);
+
+        // bucket the points by slope to p
+        int stamp = ++pass;
+        int mask = keys.length - 1;
+        int size = 0;
+        for (int j = 0; j < n; j++) {
+            if (xs[j] == x && ys[j] == y) {
+                throw new IllegalArgumentException("Point " + p + " was already added");
+            }
+            long key, dx = 0;
+            if (wide) {
+                key = Point.slopeNumerator(x, y, xs[j], ys[j]);
+                dx = Point.slopeDenominator(x, y, xs[j], ys[j]);
+            } else {
+                key = FastCollinearPoints.slopeKey(x, y, xs[j], ys[j], narrow);
+            }
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L ^ dx * 0xC2B2AE3D27D4EB4FL) >>> shift);
+            while (stamps[slot] == stamp && (keys[slot] != key || dxs[slot] != dx)) {
+                slot = (slot + 1) & mask;
+            }
+            if (stamps[slot] != stamp) {
+                stamps[slot] = stamp;
+                keys[slot] = key;
+                dxs[slot] = dx;
+                counts[slot] = 0;
+                heads[slot] = -1;
+                used[size++] = slot;
+            }
+            counts[slot]++;
+            links[j] = heads[slot];
+            heads[slot] = j;
+        }
+
+        int id = n++;
+        points[id] = p;
+        xs[id] = x;
+        ys[id] = y;
+        minX = loX;
+        maxX = hiX;
+        minY = loY;
+        maxY = hiY;
+
+        int events = 0;
+        for (int k = 0; k < size; k++) {
+            int slot = used[k];
+            if (counts[slot] < 3) continue;
+            int line = registry.find(x, y, xs[heads[slot]], ys[heads[slot]]);
+            Event event;
+            if (line >= 0) {
+                registry.addMember(line, id);
+                if (p.compareTo(points[lows[line]]) < 0)  lows[line] = id;
+                if (p.compareTo(points[highs[line]]) > 0) highs[line] = id;
+                event = Event.EXTENDED;
+            } else {
+                line = newLine(slot, id);
+                event = Event.FORMED;
+            }
+            events++;
+            if (listener != null) listener.segmentChanged(event, line, segment(line));
+        }
+        return events;
+    }
+
+    // register the line of the points of a slot and the point id,
+    // with its points in order of insertion
+    private int newLine(int slot, int id) {
+        int count = counts[slot];
+        int[] members = new int[count + 1];
+        members[count] = id;
+        int low = id, high = id;
+        for (int j = heads[slot], k = count - 1; j >= 0; j = links[j], k--) {
+            members[k] = j;
+            if (points[j].compareTo(points[low]) < 0)  low = j;
+            if (points[j].compareTo(points[high]) > 0) high = j;
+        }
+        int line = registry.add(xs[id], ys[id], xs[members[0]], ys[members[0]],
+                                members, 0, members.length);
+        if (line == lows.length) {
+            lows = Arrays.copyOf(lows, 2 * line);
+            highs = Arrays.copyOf(highs, 2 * line);
+        }
+        lows[line] = low;
+        highs[line] = high;
+        return line;
+    }
+
+    // move the points to arrays of the given capacity, and
+    // make the hash table at least twice as large
+    private void resize(int capacity) {
+        points = Arrays.copyOf(points, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        links = new int[capacity];
+        used = new int[capacity];
+        int slots = 2 * capacity;
+        shift = 64 - Integer.numberOfTrailingZeros(slots);
+        keys = new long[slots];
+        dxs = new long[slots];
+        stamps = new int[slots];
+        counts = new int[slots];
+        heads = new int[slots];
+    }
+
+    /**
+     * Returns the number of points added.
+     *
+     * @return the number of points
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Return the number of line segments
+     *
+     * @return the number of line segments
+     */
+    public int numberOfSegments() {
+        return registry.size();
+    }
+
+    /**
+     * Return the array of line segments, in the order in which their
+     * lines were formed.
+     *
+     * @return the array of line segments
+     */
+    public LineSegment[] segments() {
+        LineSegment[] segments = new LineSegment[registry.size()];
+        for (int line = 0; line < segments.length; line++) {
+            segments[line] = segment(line);
+        }
+        return segments;
+    }
+
+    /**
+     * Visits the endpoints of all the line segments, in the order in
+     * which their lines were formed, without allocating.
+     *
+     * @param visitor the visitor
+     * @throws NullPointerException if visitor is null
+     */
+    public void forEachSegment(PackedSegments.SegmentVisitor visitor) {
+        if (visitor == null) throw new NullPointerException("Visitor provided is NULL");
+        for (int line = 0; line < registry.size(); line++) {
+            int low = lows[line], high = highs[line];
+            visitor.visit(xs[low], ys[low], xs[high], ys[high]);
+        }
+    }
+
+    /**
+     * Returns all the points of a line, in order of insertion.
+     *
+     * @param line index of the line, in the order in which the lines were formed
+     * @return the points of the line
+     * @throws IndexOutOfBoundsException unless 0 <= line < numberOfSegments()
+     */
+    public Point[] linePoints(int line) {
+        if (line < 0 || line >= registry.size()) {
+            throw new IndexOutOfBoundsException("index " + line + " is not between 0 and "
+                    + (registry.size() - 1));
+        }
+        Point[] members = new Point[registry.size(line)];
+        for (int k = 0; k < members.length; k++) {
+            members[k] = points[registry.member(line, k)];
+        }
+        return members;
+    }
+
+    private LineSegment segment(int line) {
+        return new LineSegment(points[lows[line]], points[highs[line]]);
+    }
+
+    /**
+     * Unit tests the <tt>IncrementalCollinearPoints</tt> data type: adds
+     * the points of a file one at a time, prints the segment events, and
+     * checks the final segments against <tt>FastCollinearPoints</tt>.
+     */
+    public static void main(String[] args) {
+        String fileName = args.length > 0 ? args[0] : "collinear/input8.txt";
+        In in = new In(fileName);
+        int N = in.readInt();
+        Point[] points = new Point[N];
+        for (int i = 0; i < N; i++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            points[i] = new Point(x, y);
+        }
+
+        IncrementalCollinearPoints collinear = new IncrementalCollinearPoints(
+                (event, line, segment) -> StdOut.println(event + " " + line + ": " + segment));
+        for (Point p : points) {
+            collinear.add(p);
+        }
+
+        LineSegment[] segments = collinear.segments();
+        String[] incremental = new String[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            incremental[i] = segments[i].toString();
+        }
+        LineSegment[] batch = new FastCollinearPoints(points).segments();
+        String[] expected = new String[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            expected[i] = batch[i].toString();
+        }
+        Arrays.sort(incremental);
+        Arrays.sort(expected);
+        StdOut.println(Arrays.equals(incremental, expected) ? "same segments as FastCollinearPoints"
+                                                            : "segments differ from FastCollinearPoints");
+    }
+}
@@ -0,0 +1,280 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+/**
+ * The <tt>LineRegistry</tt> class represents a set of lines of the plane,
+ * each with the list of the points on it. Points are designated by
+ * non-negative integer ids, such as their index in an array of points.
+ * It supports finding a line by two of its points, listing the points of
+ * a line, and listing the lines through a point.
+ * <p>
+ * A line is identified by its slope reduced to lowest terms dy/dx with
+ * dx &ge; 0 (see <em>Point.slopeNumerator</em>), and by its intercept
+ * dx*y - dy*x, which is the same integer for every point (x, y) of the
+ * line. The terms of the slope take up to 33 bits and the intercept up to
+ * 66, which is kept as two longs, so that lines are told apart exactly
+ * for all int coordinates. The lines are found with an open addressing
+ * hash table on the slope and intercept, with linear probing, resized to
+ * stay at most half full. The members of each line are kept in a resizing array, and every
+ * point keeps a linked list of the lines through it, stored in arrays of
+ * entries, so that nothing is boxed.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class LineRegistry {
+
+    private int lines = 0;                   // number of lines
+    private long[] dys = new long[4];        // numerator of the slope of each line
+    private long[] dxs = new long[4];        // denominator of the slope of each line
+    private long[] highs = new long[4];      // upper 64 bits of the intercept of each line
+    private long[] lows = new long[4];       // lower 64 bits of the intercept of each line
+    private int[][] members = new int[4][];  // points of each line, in order of addition
+    private int[] sizes = new int[4];        // number of points of each line
+
+    private int[] table = new int[8];        // hash table of line + 1, 0 if empty slot
+
+    private int[] heads = new int[16];       // first entry of each point, -1 if none
+    private int entries = 0;                 // number of (point, line) entries
+    private int[] entryLines = new int[16];  // line of each entry
+    private int[] entryNexts = new int[16];  // next entry of the same point, -1 if none
+
+    /**
+     * Initializes an empty registry.
+     */
+    public LineRegistry() {
+        Arrays.fill(heads, -1);
+    }
+
+    /**
+     * Returns the number of lines in the registry.
+     *
+     * @return the number of lines
+     */
+    public int size() {
+        return lines;
+    }
+
+    /**
+     * Returns the line through two points.
+     *
+     * @param x0 the <em>x</em>-coordinate of a point of the line
+     * @param y0 the <em>y</em>-coordinate of a point of the line
+     * @param x1 the <em>x</em>-coordinate of another point of the line
+     * @param y1 the <em>y</em>-coordinate of another point of the line
+     * @return the id of the line, or -1 if there is no such line
+     * @throws IllegalArgumentException if the two points are equal
+     */
+    public int find(int x0, int y0, int x1, int y1) {
+        checkPoints(x0, y0, x1, y1);
+        long dy = Point.slopeNumerator(x0, y0, x1, y1);
+        long dx = Point.slopeDenominator(x0, y0, x1, y1);
+        return find(dy, dx, interceptHigh(dy, dx, x0, y0), dx * y0 - dy * x0);
+    }
+
+    private int find(long dy, long dx, long high, long low) {
+        int mask = table.length - 1;
+        for (int slot = hash(dy, dx, high, low) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int line = table[slot] - 1;
+            if (dys[line] == dy && dxs[line] == dx && highs[line] == high && lows[line] == low) return line;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a new line through two points, with the given points.
+     *
+     * @param x0 the <em>x</em>-coordinate of a point of the line
+     * @param y0 the <em>y</em>-coordinate of a point of the line
+     * @param x1 the <em>x</em>-coordinate of another point of the line
+     * @param y1 the <em>y</em>-coordinate of another point of the line
+     * @param ids array holding the ids of the points
+     * @param from index of the first id in the array
+     * @param to index after the last id in the array
+     * @return the id of the new line, the number of lines before the call
+     * @throws IllegalArgumentException if the two points are equal, or if
+     *         the line is already in the registry
+     */
+    public int add(int x0, int y0, int x1, int y1, int[] ids, int from, int to) {
+        checkPoints(x0, y0, x1, y1);
+        long dy = Point.slopeNumerator(x0, y0, x1, y1);
+        long dx = Point.slopeDenominator(x0, y0, x1, y1);
+        long high = interceptHigh(dy, dx, x0, y0);
+        long low = dx * y0 - dy * x0;
+        if (find(dy, dx, high, low) >= 0) {
+            throw new IllegalArgumentException("Line through (" + x0 + ", " + y0 + ") and ("
+                    + x1 + ", " + y1 + ") is already registered");
+        }
+        if (lines == dys.length) {
+            int capacity = 2 * lines;
+            dys = Arrays.copyOf(dys, capacity);
+            dxs = Arrays.copyOf(dxs, capacity);
+            highs = Arrays.copyOf(highs, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            members = Arrays.copyOf(members, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        int line = lines++;
+        dys[line] = dy;
+        dxs[line] = dx;
+        highs[line] = high;
+        lows[line] = low;
+        members[line] = new int[Math.max(4, to - from)];
+        sizes[line] = 0;
+        for (int k = from; k < to; k++) {
+            addMember(line, ids[k]);
+        }
+
+        if (2 * lines > table.length) rehash(2 * table.length);
+        else                          insert(line);
+        return line;
+    }
+
+    // check that two points are distinct
+    private static void checkPoints(int x0, int y0, int x1, int y1) {
+        if (x0 == x1 && y0 == y1) {
+            throw new IllegalArgumentException("Points (" + x0 + ", " + y0 + ") are equal");
+        }
+    }
+
+    // upper 64 bits of the 128-bit intercept dx*y - dy*x, whose
+    // lower 64 bits are the wrapped long difference
+    private static long interceptHigh(long dy, long dx, int x, int y) {
+        long a = dx * y, b = dy * x;
+        long borrow = Long.compareUnsigned(a, b) < 0 ? 1 : 0;
+        return Point.multiplyHigh(dx, y) - Point.multiplyHigh(dy, x) - borrow;
+    }
+
+    /**
+     * Adds a point at the end of the points of a line.
+     *
+     * @param line the id of the line
+     * @param id the id of the point, not yet on the line
+     */
+    public void addMember(int line, int id) {
+        if (sizes[line] == members[line].length) {
+            members[line] = Arrays.copyOf(members[line], 2 * sizes[line]);
+        }
+        members[line][sizes[line]++] = id;
+
+        if (id >= heads.length) {
+            int old = heads.length;
+            heads = Arrays.copyOf(heads, Math.max(2 * old, id + 1));
+            Arrays.fill(heads, old, heads.length, -1);
+        }
+        if (entries == entryLines.length) {
+            entryLines = Arrays.copyOf(entryLines, 2 * entries);
+            entryNexts = Arrays.copyOf(entryNexts, 2 * entries);
+        }
+        entryLines[entries] = line;
+        entryNexts[entries] = heads[id];
+        heads[id] = entries++;
+    }
+
+    /**
+     * Returns the number of points of a line.
+     *
+     * @param line the id of the line
+     * @return the number of points of the line
+     */
+    public int size(int line) {
+        return sizes[line];
+    }
+
+    /**
+     * Returns a point of a line.
+     *
+     * @param line the id of the line
+     * @param k the rank of the point, in order of addition
+     * @return the id of the kth point of the line
+     * @throws IndexOutOfBoundsException unless 0 <= k < size(line)
+     */
+    public int member(int line, int k) {
+        if (k < 0 || k >= sizes[line]) {
+            throw new IndexOutOfBoundsException("index " + k + " is not between 0 and " + (sizes[line] - 1));
+        }
+        return members[line][k];
+    }
+
+    /**
+     * Returns the first entry of the list of lines through a point.
+     * Entries are walked with <em>nextEntry</em>, and give their line
+     * with <em>entryLine</em>.
+     *
+     * @param id the id of the point
+     * @return the first entry, or -1 if no line goes through the point
+     */
+    public int firstEntry(int id) {
+        return id < heads.length ? heads[id] : -1;
+    }
+
+    /**
+     * Returns the entry after the given one in the list of lines through a point.
+     *
+     * @param entry an entry
+     * @return the next entry, or -1 if it was the last one
+     */
+    public int nextEntry(int entry) {
+        return entryNexts[entry];
+    }
+
+    /**
+     * Returns the line of an entry.
+     *
+     * @param entry an entry
+     * @return the id of the line
+     */
+    public int entryLine(int entry) {
+        return entryLines[entry];
+    }
+
+    private static int hash(long dy, long dx, long high, long low) {
+        long h = (dy * 0x9E3779B97F4A7C15L) ^ (dx * 0xC2B2AE3D27D4EB4FL)
+                 ^ (low * 0x165667B19E3779F9L) ^ high;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // put a line in the first empty slot of its probe sequence
+    private void insert(int line) {
+        int mask = table.length - 1;
+        int slot = hash(dys[line], dxs[line], highs[line], lows[line]) & mask;
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = line + 1;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int line = 0; line < lines; line++) {
+            insert(line);
+        }
+    }
+
+    /**
+     * Unit tests the <tt>LineRegistry</tt> data type.
+     */
+    public static void main(String[] args) {
+        LineRegistry registry = new LineRegistry();
+        int line = registry.add(0, 0, 1, 1, new int[] { 0, 1, 2 }, 0, 3);
+        registry.addMember(line, 3);
+        registry.add(0, 5, 1, 5, new int[] { 3, 4, 5, 6 }, 0, 4);
+
+        StdOut.println(registry.find(7, 7, -3, -3) == line);
+        StdOut.println(registry.find(7, 8, 8, 9));
+
+        // parallel lines across the whole range, whose slope terms take 32 bits
+        int min = Integer.MIN_VALUE, max = Integer.MAX_VALUE;
+        int steep = registry.add(min, min, max, max - 1, new int[] { 7, 8 }, 0, 2);
+        int next = registry.add(min, min + 1, max, max, new int[] { 9, 10 }, 0, 2);
+        StdOut.println(registry.find(max, max - 1, min, min) == steep
+                       && registry.find(max, max, min, min + 1) == next && steep != next);
+        for (int e = registry.firstEntry(3); e >= 0; e = registry.nextEntry(e)) {
+            int l = registry.entryLine(e);
+            StdOut.print("line " + l + ":");
+            for (int k = 0; k < registry.size(l); k++) {
+                StdOut.print(" " + registry.member(l, k));
+            }
+            StdOut.println();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+import edu.princeton.cs.algs4.StdIn;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * The <tt>LongDeque</tt> class implements a double-ended queue
+ * of <tt>long</tt> values, with the same operations as
+ * <tt>Deque</tt> but without boxing the values.
+ * <p>
+ * The implementation uses a circular resizing <em>long[]</em>: the
+ * values are stored from index <em>head</em> onwards, wrapping around
+ * the end of the array. The capacity is always a power of 2, doubled
+ * when the array is full and halved when it is one-quarter full.
+ * The iterator is a <em>PrimitiveIterator.OfLong</em>, whose
+ * <em>nextLong</em> method returns the values unboxed.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class LongDeque {
+
+    private int N = 0;          // number of values in deque
+    private long[] a;            // circular array of values, length a power of 2
+    private int head = 0;       // index of the first value
+
+    /**
+     * Initializes an empty deque
+     */
+    public LongDeque() {
+        a = new long[2];
+    }
+
+    /**
+     * Unit tests the <tt>LongDeque</tt> data type.
+     */
+    public static void main(String[] args) {
+
+        LongDeque deque = new LongDeque();
+        while (!StdIn.isEmpty()) {
+            String item = StdIn.readString();
+
+            switch (item.charAt(0)) {
+                case '+':
+                    deque.addFirst(Long.parseLong(item.substring(1)));
+                    break;
+                case '*':
+                    deque.addLast(Long.parseLong(item.substring(1)));
+                    break;
+                case '-':
+                    StdOut.println(deque.removeFirst());
+                    break;
+                case '/':
+                    StdOut.println(deque.removeLast());
+                    break;
+                case '=':
+                    PrimitiveIterator.OfLong it = deque.iterator();
+                    while (it.hasNext()) {
+                        StdOut.print(it.nextLong() + " ");
+                    }
+                    StdOut.print("\n");
+                    break;
+            }
+        }
+
+        if (deque.isEmpty()) StdOut.println("Deque is empty");
+        else StdOut.println("(" + deque.size() + " left on deque)");
+    }
+
+    /**
+     * Is this deque empty?
+     *
+     * @return <tt>true</tt> if this deque is empty; <tt>false</tt> otherwise
+     */
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    /**
+     * Returns the number of values in the deque.
+     *
+     * @return the number of values in the deque
+     */
+    public int size() {
+        return N;
+    }
+
+    // resize the underlying array, moving the first value to index 0
+    private void resize(int capacity) {
+        assert capacity >= N;
+        long[] temp = new long[capacity];
+        for (int i = 0; i < N; i++) {
+            temp[i] = a[(head + i) & (a.length - 1)];
+        }
+        a = temp;
+        head = 0;
+    }
+
+    /**
+     * Adds a value to the beginning of the deque
+     *
+     * @param value
+     */
+    public void addFirst(long value) {
+        if (N == a.length) resize(2 * a.length);    // double size of array if necessary
+        head = (head - 1) & (a.length - 1);
+        a[head] = value;
+        N++;
+    }
+
+    /**
+     * Adds a value to the end of the deque
+     *
+     * @param value
+     */
+    public void addLast(long value) {
+        if (N == a.length) resize(2 * a.length);    // double size of array if necessary
+        a[(head + N) & (a.length - 1)] = value;
+        N++;
+    }
+
+    /**
+     * Removes and returns the first value of the deque
+     *
+     * @return the first value of the deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException("Deque underflow");
+        long value = a[head];
+        head = (head + 1) & (a.length - 1);
+        N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4) resize(a.length / 2);
+        return value;
+    }
+
+    /**
+     * Removes and returns the last value of the deque
+     *
+     * @return the last value of the deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long removeLast() {
+        if (isEmpty()) throw new NoSuchElementException("Deque underflow");
+        long value = a[(head + N - 1) & (a.length - 1)];
+        N--;
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4) resize(a.length / 2);
+        return value;
+    }
+
+    /**
+     * Returns an iterator that iterates over the values
+     * in this deque from front to back, without boxing them.
+     *
+     * @return an iterator that iterates over the values
+     * in this deque from front to back
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new ArrayIterator();
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private class ArrayIterator implements PrimitiveIterator.OfLong {
+        private int i = 0;
+
+        public boolean hasNext() {
+            return i < N;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return a[(head + i++) & (a.length - 1)];
+        }
+    }
+}
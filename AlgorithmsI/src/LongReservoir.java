@@ -0,0 +1,142 @@
+import edu.princeton.cs.algs4.StdIn;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The <tt>LongReservoir</tt> class implements a weighted random
+ * sample of <em>k</em> <tt>long</tt> values, without replacement, from
+ * a stream of unknown length, with the same operations as
+ * <tt>WeightedReservoir</tt> but without boxing the values. The values
+ * are typically handles, such as packed file offsets, that are only
+ * resolved for the sampled values.
+ * <p>
+ * Both reservoirs run the same <tt>ExpJSampler</tt>, and only differ by
+ * the type of the array in which they store the sampled values.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class LongReservoir {
+
+    private final long[] items;         // sampled values, by slot of the sampler
+    private final ExpJSampler sampler;  // which values are sampled, and where they go
+
+    /**
+     * Initializes an empty reservoir of k items.
+     *
+     * @param k number of items to sample
+     * @throws IllegalArgumentException if k <= 0
+     */
+    public LongReservoir(int k) {
+        this(k, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Initializes an empty reservoir of k items
+     * with a reproducible random stream.
+     *
+     * @param k number of items to sample
+     * @param seed the seed of the random stream
+     * @throws IllegalArgumentException if k <= 0
+     */
+    public LongReservoir(int k, long seed) {
+        sampler = new ExpJSampler(k, seed);
+        items = new long[k];
+    }
+
+    /**
+     * Returns the number of items in the reservoir.
+     *
+     * @return the number of items in the reservoir
+     */
+    public int size() {
+        return sampler.size();
+    }
+
+    /**
+     * Returns the number of items offered so far.
+     *
+     * @return the number of items offered
+     */
+    public long count() {
+        return sampler.count();
+    }
+
+    /**
+     * Offers a value with the given weight to the reservoir.
+     *
+     * @param item the value
+     * @param weight the weight of the value
+     * @throws IllegalArgumentException unless weight is positive and finite
+     */
+    public void add(long item, double weight) {
+        int slot = sampler.offer(weight);
+        if (slot >= 0) items[slot] = item;
+    }
+
+    /**
+     * Merges the items of another reservoir of the same size into this
+     * one, which then holds a sample of both streams. The other reservoir
+     * must have sampled a disjoint stream and is left unchanged.
+     *
+     * @param that the other reservoir
+     * @throws NullPointerException if that is NULL
+     * @throws IllegalArgumentException if the reservoirs have different sizes
+     */
+    public void merge(final LongReservoir that) {
+        if (that == null) {
+            throw new java.lang.NullPointerException("Reservoir provided is NULL");
+        }
+        sampler.merge(that.sampler, (from, to) -> items[to] = that.items[from]);
+    }
+
+    /**
+     * Returns an iterator over the values in the reservoir, in no
+     * particular order, without boxing them.
+     *
+     * @return an iterator over the sampled values
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new ArrayIterator();
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private class ArrayIterator implements PrimitiveIterator.OfLong {
+        private int i = 0;
+
+        public boolean hasNext() {
+            return i < sampler.size();
+        }
+
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return items[i++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Unit tests the <tt>LongReservoir</tt> data type: samples k
+     * values from standard input, given as pairs of value and weight.
+     *
+     * @param args the sample size k
+     */
+    public static void main(String[] args) {
+        int k = Integer.parseInt(args[0]);
+        LongReservoir reservoir = new LongReservoir(k);
+        while (!StdIn.isEmpty()) {
+            long item = Long.parseLong(StdIn.readString());
+            reservoir.add(item, Double.parseDouble(StdIn.readString()));
+        }
+        PrimitiveIterator.OfLong it = reservoir.iterator();
+        while (it.hasNext()) {
+            StdOut.println(it.nextLong());
+        }
+    }
+}
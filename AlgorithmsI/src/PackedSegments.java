@@ -0,0 +1,253 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The <tt>PackedSegments</tt> class represents an immutable list of line
+ * segments, as found by the collinear searches, stored as the coordinates
+ * of their endpoints rather than as <tt>LineSegment</tt> objects.
+ * <p>
+ * The endpoints of segment <em>k</em> are packed in a single array of
+ * integers, at indices 4k to 4k + 3, which takes 16 bytes per segment
+ * against about 28 for a <tt>LineSegment</tt> and the reference to it,
+ * and leaves nothing for the garbage collector to trace. The segments can
+ * be read in place through the coordinate accessors or with an
+ * allocation-free <tt>SegmentVisitor</tt>, and <em>get</em> and the
+ * iterator build <tt>LineSegment</tt> views only when they are asked for.
+ * Since the list is immutable it is shared without copying.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public final class PackedSegments implements Iterable<LineSegment> {
+
+    /**
+     * Receives the endpoints of the segments, one segment at a time.
+     */
+    public interface SegmentVisitor {
+        /**
+         * Visits the segment from (px, py) to (qx, qy).
+         *
+         * @param px the <em>x</em>-coordinate of the first endpoint
+         * @param py the <em>y</em>-coordinate of the first endpoint
+         * @param qx the <em>x</em>-coordinate of the second endpoint
+         * @param qy the <em>y</em>-coordinate of the second endpoint
+         */
+        void visit(int px, int py, int qx, int qy);
+    }
+
+    private final int[] coords; // px, py, qx, qy of each segment, of length 4n
+    private final int n;        // number of segments
+
+    private PackedSegments(int[] coords, int n) {
+        this.coords = coords;
+        this.n = n;
+    }
+
+    /**
+     * Returns the number of segments.
+     *
+     * @return the number of segments
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the <em>x</em>-coordinate of the first endpoint of a segment.
+     *
+     * @param k index of the segment
+     * @return the <em>x</em>-coordinate of its first endpoint
+     * @throws IndexOutOfBoundsException unless 0 <= k < size()
+     */
+    public int startX(int k) {
+        return coords[index(k)];
+    }
+
+    /**
+     * Returns the <em>y</em>-coordinate of the first endpoint of a segment.
+     *
+     * @param k index of the segment
+     * @return the <em>y</em>-coordinate of its first endpoint
+     * @throws IndexOutOfBoundsException unless 0 <= k < size()
+     */
+    public int startY(int k) {
+        return coords[index(k) + 1];
+    }
+
+    /**
+     * Returns the <em>x</em>-coordinate of the second endpoint of a segment.
+     *
+     * @param k index of the segment
+     * @return the <em>x</em>-coordinate of its second endpoint
+     * @throws IndexOutOfBoundsException unless 0 <= k < size()
+     */
+    public int endX(int k) {
+        return coords[index(k) + 2];
+    }
+
+    /**
+     * Returns the <em>y</em>-coordinate of the second endpoint of a segment.
+     *
+     * @param k index of the segment
+     * @return the <em>y</em>-coordinate of its second endpoint
+     * @throws IndexOutOfBoundsException unless 0 <= k < size()
+     */
+    public int endY(int k) {
+        return coords[index(k) + 3];
+    }
+
+    /**
+     * Returns a segment, as a new <tt>LineSegment</tt> between new points.
+     *
+     * @param k index of the segment
+     * @return the segment
+     * @throws IndexOutOfBoundsException unless 0 <= k < size()
+     */
+    public LineSegment get(int k) {
+        int i = index(k);
+        return new LineSegment(new Point(coords[i], coords[i + 1]),
+                               new Point(coords[i + 2], coords[i + 3]));
+    }
+
+    // index of the first coordinate of segment k
+    private int index(int k) {
+        if (k < 0 || k >= n) {
+            throw new IndexOutOfBoundsException("index " + k + " is not between 0 and " + (n - 1));
+        }
+        return 4 * k;
+    }
+
+    /**
+     * Visits all the segments in order, without allocating.
+     *
+     * @param visitor the visitor
+     * @throws NullPointerException if visitor is null
+     */
+    public void forEachSegment(SegmentVisitor visitor) {
+        if (visitor == null) throw new NullPointerException("Visitor provided is NULL");
+        for (int i = 0; i < 4 * n; i += 4) {
+            visitor.visit(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]);
+        }
+    }
+
+    /**
+     * Returns a new array of the segments, as <tt>LineSegment</tt> objects.
+     *
+     * @return the array of line segments
+     */
+    public LineSegment[] toArray() {
+        LineSegment[] segments = new LineSegment[n];
+        for (int k = 0; k < n; k++) {
+            segments[k] = get(k);
+        }
+        return segments;
+    }
+
+    /**
+     * Returns an iterator over the segments, in order, building
+     * each <tt>LineSegment</tt> when it is returned.
+     *
+     * @return an iterator over the segments
+     */
+    public Iterator<LineSegment> iterator() {
+        return new SegmentIterator();
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private class SegmentIterator implements Iterator<LineSegment> {
+        private int k = 0;
+
+        public boolean hasNext() {
+            return k < n;
+        }
+
+        public LineSegment next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return get(k++);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Compares two lists of segments: they are equal if they have the
+     * same segments, with the same endpoints, in the same order.
+     *
+     * @param other the object to compare to
+     * @return <tt>true</tt> if the lists are equal, and <tt>false</tt> otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) return true;
+        if (!(other instanceof PackedSegments)) return false;
+        return Arrays.equals(coords, ((PackedSegments) other).coords);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coords);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < 4 * n; i += 4) {
+            s.append('(').append(coords[i]).append(", ").append(coords[i + 1]).append(") -> (")
+             .append(coords[i + 2]).append(", ").append(coords[i + 3]).append(")\n");
+        }
+        return s.toString();
+    }
+
+    /**
+     * The <tt>Builder</tt> class collects the segments of a search, and
+     * packs them into a <tt>PackedSegments</tt> of the exact size.
+     */
+    static final class Builder {
+        private int[] coords = new int[16];
+        private int n = 0;
+
+        /**
+         * Adds the segment from (px, py) to (qx, qy).
+         */
+        void add(int px, int py, int qx, int qy) {
+            if (4 * n == coords.length) coords = Arrays.copyOf(coords, 2 * coords.length);
+            int i = 4 * n++;
+            coords[i] = px;
+            coords[i + 1] = py;
+            coords[i + 2] = qx;
+            coords[i + 3] = qy;
+        }
+
+        /**
+         * Returns the segments added so far.
+         */
+        PackedSegments build() {
+            return new PackedSegments(Arrays.copyOf(coords, 4 * n), n);
+        }
+    }
+
+    /**
+     * Unit tests the <tt>PackedSegments</tt> data type.
+     */
+    public static void main(String[] args) {
+        Builder builder = new Builder();
+        for (int i = 0; i < 5; i++) {
+            builder.add(i, 0, i, 10 * i + 10);
+        }
+        PackedSegments segments = builder.build();
+        StdOut.print(segments);
+        for (LineSegment segment : segments) {
+            StdOut.println(segment);
+        }
+
+        final long[] length = new long[1];
+        segments.forEachSegment((px, py, qx, qy) -> length[0] += qy - py);
+        StdOut.println("total length " + length[0]);
+        StdOut.println(segments.equals(builder.build()) + " " + (segments.hashCode() == builder.build().hashCode()));
+    }
+}
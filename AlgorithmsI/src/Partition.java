@@ -1,13 +1,90 @@
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
- * Created by alitabet on 9/23/15.
- */
+ * The <tt>Partition</tt> class implements the partitioning steps
+ * of quicksort, and a quicksort driver built on them.
+ * <p>
+ * The <em>partition</em> operation is the classic 2-way partitioning on
+ * the first item, and <em>partitionThreeWay</em> is Dijkstra's 3-way
+ * partitioning, which puts all the items equal to the pivot in the middle.
+ * The <em>sort</em> operation sorts an array with either Dijkstra's 3-way
+ * partitioning or Yaroslavskiy's dual-pivot partitioning. The 3-way sort
+ * never recurses into a run of items equal to the pivot, so arrays with
+ * many duplicate keys take time closer to linear than to N log N.
+ * </p>
+ * <p>
+ * Pivots are the median of 3 items for small subarrays and Tukey's ninther
+ * (the median of three medians of 3) for large ones. The dual-pivot sort
+ * takes the second and fourth of 5 evenly spaced items. Subarrays of at
+ * most <em>INSERTION_CUTOFF</em> items are insertion sorted. The sort
+ * recurses into the smaller parts and loops on the largest, so the
+ * recursion depth is logarithmic.
+ * </p>
+ * <p>
+ * The <em>parallelSort</em> operation runs the 3-way sort as fork/join
+ * tasks on the common <em>ForkJoinPool</em>: each task partitions its
+ * subarray and forks the parts smaller and greater than the pivot, down
+ * to subarrays of <em>PARALLEL_CUTOFF</em> items, which are sorted
+ * sequentially.
+ * </p>
+ * <p>
+ * A <tt>Partition</tt> built with tracing prints the array after every
+ * exchange, as the original exercise did. Without tracing, sorting does
+ * no I/O.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
 public class Partition {
 
+    /**
+     * The partitioning scheme used by <em>sort</em>.
+     */
+    public enum Scheme {
+        /** Dijkstra's 3-way partitioning, on one pivot. */
+        THREE_WAY,
+        /** Yaroslavskiy's partitioning, on two pivots. */
+        DUAL_PIVOT
+    }
+
+    private static final int INSERTION_CUTOFF = 12; // largest subarray that is insertion sorted
+    private static final int NINTHER_CUTOFF = 40;   // smallest subarray whose pivot is a ninther
+    private static final int PARALLEL_CUTOFF = 1 << 13; // largest subarray sorted sequentially
+
+    private final boolean trace; // print the array after every exchange
+
+    /**
+     * Initializes a Partition without tracing.
+     */
+    public Partition() {
+        this(false);
+    }
+
+    /**
+     * Initializes a Partition.
+     *
+     * @param trace whether to print the array after every exchange
+     */
+    public Partition(boolean trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Partitions a[lo..hi] on the item a[lo], so that the items left of
+     * the returned index are no greater, and those right of it no smaller.
+     *
+     * @param a the array
+     * @param lo index of the first item
+     * @param hi index of the last item
+     * @return the final index of the pivot
+     */
     public int partition(Comparable[] a, int lo, int hi) {
 
-        int i = 0, j = hi+1;
+        int i = lo, j = hi+1;
 
         Comparable v = a[lo];
         printArray(a);
@@ -16,15 +93,27 @@ public class Partition {
             while (v.compareTo(a[--j]) < 0) if (j == lo) break;
             if (i >= j) break;
             exch(a, i, j);
-            printArray(a);
         }
         exch(a, lo, j);
-        printArray(a);
         return j;
     }
 
+    /**
+     * Partitions a[lo..hi] on the item a[lo] into the items smaller
+     * than it, the items equal to it and the items greater than it.
+     *
+     * @param a the array
+     * @param lo index of the first item
+     * @param hi index of the last item
+     * @return the index after the last item equal to the pivot
+     */
     public int partitionThreeWay(Comparable[] a, int lo, int hi) {
+        return (int) threeWay(a, lo, hi) + 1;
+    }
 
+    // Dijkstra's 3-way partitioning on a[lo], giving a[lo..lt-1] < v,
+    // a[lt..gt] == v and a[gt+1..hi] > v, and returning lt and gt packed
+    private long threeWay(Comparable[] a, int lo, int hi) {
         int lt = lo, i = lo + 1, gt = hi;
         Comparable v = a[lo];
         printArray(a);
@@ -33,19 +122,182 @@ public class Partition {
             if      (cmp < 0) exch(a, lt++, i++);
             else if (cmp > 0) exch(a, i, gt--);
             else    i++;
+        }
+        return (long) lt << 32 | gt;
+    }
+
+    /**
+     * Sorts the array in ascending order, with 3-way partitioning.
+     *
+     * @param a the array
+     */
+    public void sort(Comparable[] a) {
+        sort(a, Scheme.THREE_WAY);
+    }
+
+    /**
+     * Sorts the array in ascending order, with the given
+     * partitioning scheme. The sort is not stable.
+     *
+     * @param a the array
+     * @param scheme the partitioning scheme
+     */
+    public void sort(Comparable[] a, Scheme scheme) {
+        if (scheme == Scheme.DUAL_PIVOT) sortDualPivot(a, 0, a.length - 1);
+        else                             sortThreeWay(a, 0, a.length - 1);
+    }
+
+    /**
+     * Sorts the array in ascending order, with 3-way partitioning,
+     * on the threads of the common fork/join pool. With tracing the
+     * array is sorted sequentially, so that the trace stays readable.
+     *
+     * @param a the array
+     */
+    public void parallelSort(Comparable[] a) {
+        if (trace) sortThreeWay(a, 0, a.length - 1);
+        else       ForkJoinPool.commonPool().invoke(new SortTask(a, 0, a.length - 1));
+    }
+
+    // sorts a[lo..hi], partitioning it and forking its parts while they are large
+    private class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Comparable[] a;
+        private final int lo, hi;
+
+        SortTask(Comparable[] a, int lo, int hi) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo + 1 <= PARALLEL_CUTOFF) {
+                sortThreeWay(a, lo, hi);
+                return;
+            }
+            exch(a, lo, pivot(a, lo, hi));
+            long bounds = threeWay(a, lo, hi);
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+            invokeAll(new SortTask(a, lo, lt - 1), new SortTask(a, gt + 1, hi));
+        }
+    }
+
+    private void sortThreeWay(Comparable[] a, int lo, int hi) {
+        while (hi - lo + 1 > INSERTION_CUTOFF) {
+            exch(a, lo, pivot(a, lo, hi));
+            long bounds = threeWay(a, lo, hi);
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+            // recurse into the smaller side, loop on the larger one
+            if (lt - lo < hi - gt) {
+                sortThreeWay(a, lo, lt - 1);
+                lo = gt + 1;
+            } else {
+                sortThreeWay(a, gt + 1, hi);
+                hi = lt - 1;
+            }
+        }
+        insertionSort(a, lo, hi);
+    }
+
+    private void sortDualPivot(Comparable[] a, int lo, int hi) {
+        while (hi - lo + 1 > INSERTION_CUTOFF) {
+            choosePivots(a, lo, hi);
+            Comparable p = a[lo], q = a[hi];
             printArray(a);
+
+            // a[lo+1..lt-1] < p <= a[lt..i-1] <= q < a[gt+1..hi-1]
+            int lt = lo + 1, i = lo + 1, gt = hi - 1;
+            while (i <= gt) {
+                if      (a[i].compareTo(p) < 0) exch(a, lt++, i++);
+                else if (q.compareTo(a[i]) < 0) exch(a, i, gt--);
+                else    i++;
+            }
+            exch(a, lo, --lt);
+            exch(a, hi, ++gt);
+
+            // the middle part is all equal to p when the pivots are equal
+            boolean middle = p.compareTo(q) < 0;
+            int left = lt - lo, center = middle ? gt - lt - 1 : 0, right = hi - gt;
+            if (left >= center && left >= right) {
+                if (middle) sortDualPivot(a, lt + 1, gt - 1);
+                sortDualPivot(a, gt + 1, hi);
+                hi = lt - 1;
+            } else if (right >= center) {
+                sortDualPivot(a, lo, lt - 1);
+                if (middle) sortDualPivot(a, lt + 1, gt - 1);
+                lo = gt + 1;
+            } else {
+                sortDualPivot(a, lo, lt - 1);
+                sortDualPivot(a, gt + 1, hi);
+                lo = lt + 1;
+                hi = gt - 1;
+            }
         }
-        printArray(a);
-        return i;
+        insertionSort(a, lo, hi);
+    }
+
+    // index of the median of 3 items of a[lo..hi], or of the ninther for large subarrays
+    private static int pivot(Comparable[] a, int lo, int hi) {
+        int n = hi - lo + 1;
+        int mid = lo + n / 2;
+        if (n < NINTHER_CUTOFF) return median3(a, lo, mid, hi);
+        int eps = n / 8;
+        int m1 = median3(a, lo, lo + eps, lo + eps + eps);
+        int m2 = median3(a, mid - eps, mid, mid + eps);
+        int m3 = median3(a, hi - eps - eps, hi - eps, hi);
+        return median3(a, m1, m2, m3);
+    }
+
+    // index of the median of a[i], a[j] and a[k]
+    private static int median3(Comparable[] a, int i, int j, int k) {
+        return (less(a[i], a[j]) ?
+               (less(a[j], a[k]) ? j : less(a[i], a[k]) ? k : i) :
+               (less(a[k], a[j]) ? j : less(a[k], a[i]) ? k : i));
+    }
+
+    // sort 5 evenly spaced items of a[lo..hi] in place,
+    // and move the second one to lo and the fourth one to hi
+    private void choosePivots(Comparable[] a, int lo, int hi) {
+        int sixth = (hi - lo + 1) / 6;
+        int[] e = { lo + sixth, lo + 2 * sixth, lo + 3 * sixth, lo + 4 * sixth, lo + 5 * sixth };
+        for (int i = 1; i < e.length; i++) {
+            for (int j = i; j > 0 && less(a[e[j]], a[e[j - 1]]); j--) {
+                exch(a, e[j], e[j - 1]);
+            }
+        }
+        exch(a, lo, e[1]);
+        exch(a, hi, e[3]);
+    }
+
+    // sort a[lo..hi] by insertion, shifting larger items to the right
+    private static void insertionSort(Comparable[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            Comparable v = a[i];
+            int j = i;
+            while (j > lo && less(v, a[j - 1])) {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = v;
+        }
+    }
+
+    private static boolean less(Comparable v, Comparable w) {
+        return v.compareTo(w) < 0;
     }
 
     private void exch(Comparable[] a, int i, int j) {
         Comparable temp = a[i];
         a[i] = a[j];
         a[j] = temp;
+        printArray(a);
     }
 
     private void printArray(Comparable[] a) {
+        if (!trace) return;
         for (Comparable i : a) {
             StdOut.print(i.toString() + " ");
         }
@@ -63,10 +315,23 @@ public class Partition {
         }
         //String[] a = temp;
 
-        Partition partition = new Partition();
+        Partition partition = new Partition(true);
 
         if (!threeWay) partition.partition(a, 0, a.length - 1);
         else           partition.partitionThreeWay(a, 0, a.length - 1);
+
+        // sort random arrays with few distinct keys, with both schemes
+        Partition sorter = new Partition();
+        Random random = new Random(0);
+        for (Scheme scheme : Scheme.values()) {
+            Integer[] b = new Integer[1000000];
+            for (int i = 0; i < b.length; i++) b[i] = random.nextInt(100);
+            sorter.sort(b, scheme);
+            for (int i = 1; i < b.length; i++) {
+                if (b[i - 1] > b[i]) throw new IllegalStateException(scheme + " is not sorted at " + i);
+            }
+            StdOut.println(scheme + ": sorted " + b.length + " items");
+        }
     }
 
 }
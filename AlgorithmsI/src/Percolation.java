@@ -1,40 +1,49 @@
 import edu.princeton.cs.algs4.StdDraw;
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
  * The <tt>Percolation</tt> class represents a percolate data structure.
  * This implementation supports <em>percolates</em> operation to determine
  * whether a system percolates.
- * <p> 
- * The implementation uses an object <em>WeightedQuickUnionUF</em>  to store
- * the sites. For a <tt>Percolation</tt> object of size N, a
- * <em>WeightedQuickUnionUF</em> of size N^2 + 2 is created.
- * The N^2 corresponds to all the sites in the Percolation, and
- * the extra 2 represent 2 virtual sites, one top and one bottom  
- * Whenever a site is opened, the <em>WeightedQuickUnionUF</em>
- * will connect it to all its open neighbors (use a 4-connectivity).
+ * <p>
+ * The implementation stores the N^2 sites in a flat array, site (i, j)
+ * being located at index N * (i - 1) + (j - 1), and keeps a single
+ * union-find over those sites: an <em>int[]</em> of parent links with
+ * path halving, plus a <em>byte[]</em> of per-site state. The state byte
+ * packs whether the site is open, and, for the root of each component,
+ * whether the component touches the top row, whether it touches the bottom
+ * row, and the rank used for union by rank. Whenever a site is opened it is
+ * joined to all its open neighbors (use a 4-connectivity) and the flags of
+ * the two roots are merged.
  * </p>
  * <p>
- * To implement the percolation efficiently, the <em>WeightedQuickUnionUF</em>
- * stores 2 extra virtual sites. The top site is always connected to the open
- * sites of the first row. The bottom site is always connected to the open sites
- * of the last row. To check whether a system percolates, we just check whether
- * the first site (virtual) is connected to the last site (virtual) using 
- * the <tt>WeightedQuickUnionUF</tt> method <em>connected</em>
- * 
+ * Since there are no virtual top and bottom sites, there is no backwash:
+ * a site is full exactly when the root of its component has the top flag,
+ * and the system percolates as soon as a root holds both the top and the
+ * bottom flag. The <em>open</em>, <em>isFull</em> and <em>percolates</em>
+ * operations take near-constant amortized time, and the data structure uses
+ * 5 bytes per site.
  * </p>
  * @author Ali K Thabet
  **/
 
 public class Percolation {
-    private boolean[][] sites; // array of sites with dimensions size x size
-    private int size;  // dimensions of site array
-    private WeightedQuickUnionUF quickUnionObject, auxObject; // quick union implementation
-    
+
+    private static final int OPEN = 1;       // site is open
+    private static final int TOP = 2;        // component touches the first row
+    private static final int BOTTOM = 4;     // component touches the last row
+    private static final int RANK_SHIFT = 3; // rank is stored in the upper 5 bits
+
+    private int size;          // dimensions of site array
+    private int[] parent;      // parent links of the union-find, one per site
+    private byte[] state;      // packed OPEN/TOP/BOTTOM flags and rank, one per site
+    private int openSites;     // number of open sites
+    private boolean percolates; // true once a component touches top and bottom
+
     /**
      * Initializes a Percolation item with N x N sites.
      * @param N number of sites in each dimension
@@ -44,19 +53,29 @@ public class Percolation {
         if (N <= 0) {
             throw new IllegalArgumentException("Site dimension " + N + " is not greater than 0.");
         }
-        
+
         size = N;
-        sites = new boolean[N][N];
-        quickUnionObject = new WeightedQuickUnionUF((N * N) + 2);
-        auxObject = new WeightedQuickUnionUF((N * N) + 2);
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                sites[i][j] = false;
-            }
+        parent = new int[N * N];
+        state = new byte[N * N];
+        for (int p = 0; p < parent.length; p++) {
+            parent[p] = p;
+        }
+    }
+
+    /**
+     * Blocks every site again, so the same object can be reused
+     * for another experiment without reallocating its arrays.
+     */
+    void clear() {
+        for (int p = 0; p < parent.length; p++) {
+            parent[p] = p;
         }
+        Arrays.fill(state, (byte) 0);
+        openSites = 0;
+        percolates = false;
     }
-    
-    /** 
+
+    /**
      * validate if index (i, j) is within bounds.
      * @param i index of 1st dimension
      * @param j index of second dimension
@@ -70,27 +89,76 @@ public class Percolation {
             throw new IndexOutOfBoundsException("index " + j + " is not between 1 and " + size);
         }
     }
-    
+
     /**
-     * Returns linear index of quick union array.
+     * Returns linear index of site (i, j) in the flat site array.
      * @param i index of 1st dimension
      * @param j index of second dimension
-     * @return linear index on quick union array
+     * @return linear index on the site array
      */
-    private int qufIndex(int i, int j) {
-        
-        if (i == 0) {
-            return 0;
+    private int siteIndex(int i, int j) {
+        return size * (i - 1) + (j - 1);
+    }
+
+    // root of the component containing site p, halving the path on the way
+    private int find(int p) {
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    // merge the components containing sites p and q, and their flags
+    private void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return;
+
+        int rankP = (state[rootP] & 0xFF) >>> RANK_SHIFT;
+        int rankQ = (state[rootQ] & 0xFF) >>> RANK_SHIFT;
+        if (rankP < rankQ) {
+            parent[rootP] = rootQ;
+            state[rootQ] |= state[rootP] & (TOP | BOTTOM);
+        }
+        else if (rankP > rankQ) {
+            parent[rootQ] = rootP;
+            state[rootP] |= state[rootQ] & (TOP | BOTTOM);
         }
-        if (i == size + 1) {
-            return size*size + 1; 
+        else {
+            parent[rootQ] = rootP;
+            int merged = (state[rootP] & 0xFF) | (state[rootQ] & (TOP | BOTTOM));
+            state[rootP] = (byte) (merged + (1 << RANK_SHIFT));
         }
+    }
+
+    /**
+     * Opens the site at linear index p, and connects the site to
+     * all its open neighbors. Does nothing if the site is already open.
+     * @param p linear index of the site, between 0 and N^2 - 1
+     */
+    void openSite(int p) {
+        if ((state[p] & OPEN) != 0) return;
+
+        int flags = OPEN;
+        if (p < size) flags |= TOP;
+        if (p >= size * (size - 1)) flags |= BOTTOM;
+        state[p] |= flags;
+        openSites++;
 
-        return size * (i - 1) + j;
+        int col = p % size;
+        if (col > 0 && (state[p - 1] & OPEN) != 0) union(p, p - 1);
+        if (col < size - 1 && (state[p + 1] & OPEN) != 0) union(p, p + 1);
+        if (p >= size && (state[p - size] & OPEN) != 0) union(p, p - size);
+        if (p < size * (size - 1) && (state[p + size] & OPEN) != 0) union(p, p + size);
+
+        if ((state[find(p)] & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+            percolates = true;
+        }
     }
-    
+
     /**
-     * Opens the site located at (i, j), 
+     * Opens the site located at (i, j),
      * and connects the site to all its open neighbors.
      * @param i index of 1st dimension
      * @param j index of second dimension
@@ -98,33 +166,9 @@ public class Percolation {
      */
     public void open(int i, int j) {
         validate(i, j);
-        sites[i - 1][j - 1] = true;
-        
-        // Check all neighbors of site (i,j)
-        // Start with left and right
-        if (isOpen(i, Math.max(1, j - 1))) {
-            quickUnionObject.union(qufIndex(i, Math.max(1, j - 1)), qufIndex(i, j));
-            auxObject.union(qufIndex(i, Math.max(1, j - 1)), qufIndex(i, j));
-        }
-        if (isOpen(i, Math.min(size, j + 1))) {
-            quickUnionObject.union(qufIndex(i, j), qufIndex(i, Math.min(size, j + 1)));
-            auxObject.union(qufIndex(i, j), qufIndex(i, Math.min(size, j + 1)));
-        }
-        
-        // For top and bottom, if point is at extremes, then connect with
-        // virtual top or bottom site
-        if (isOpen(Math.max(i - 1, 1), j)) {
-            quickUnionObject.union(qufIndex(i - 1, j), qufIndex(i, j));
-            auxObject.union(qufIndex(i - 1, j), qufIndex(i, j));
-        }
-        if (isOpen(Math.min(i + 1, size), j)) {
-            quickUnionObject.union(qufIndex(i + 1, j), qufIndex(i, j));
-            if (qufIndex(Math.min(i + 1, size), j) != size*size + 1) {
-                auxObject.union(qufIndex(Math.min(i + 1, size), j), qufIndex(i, j));
-            }
-        }
+        openSite(siteIndex(i, j));
     }
-    
+
     /**
      * Checks if site (i, j) is open.
      * @param i index of 1st dimension
@@ -134,11 +178,12 @@ public class Percolation {
      */
     public boolean isOpen(int i, int j) {
         validate(i, j);
-        return sites[i - 1][j - 1];
+        return (state[siteIndex(i, j)] & OPEN) != 0;
     }
-    
+
     /**
-     * Checks if site (i, j) is full.
+     * Checks if site (i, j) is full, that is, open and connected
+     * to an open site of the first row.
      * @param i index of 1st dimension
      * @param j index of second dimension
      * @return <tt>true</tt> is site (i, j) is full, and <tt>false</tt> otherwise
@@ -146,18 +191,27 @@ public class Percolation {
      */
     public boolean isFull(int i, int j) {
         validate(i, j);
-        return auxObject.connected(0, qufIndex(i, j)) && isOpen(i, j);
+        int p = siteIndex(i, j);
+        return (state[p] & OPEN) != 0 && (state[find(p)] & TOP) != 0;
+    }
+
+    /**
+     * Returns the number of open sites.
+     * @return number of open sites
+     */
+    public int numberOfOpenSites() {
+        return openSites;
     }
-    
+
     /**
-     * Checks if system percolates by finding a connection between
-     * the virtual top and bottom nodes.
+     * Checks if system percolates, that is, if some component
+     * touches both the first and the last row.
      * @return <tt>true</tt> is system percolates, and <tt>false</tt> otherwise
      */
     public boolean percolates() {
-        return quickUnionObject.connected(0, qufIndex(size, size) + 1);
+        return percolates;
     }
-    
+
     /**
      * Main function for testing.
      * @param args 1 argument (N) for size of site array
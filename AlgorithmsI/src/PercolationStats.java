@@ -1,61 +1,339 @@
-
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * The <tt>PercolationStats</tt> class represents a Monte Carlo simulation
  * of the Percolation object to find the percolation threshold. It computes 
  * basic statistics using the methods <em>mean</em>, <em>stddev</em> 
  * <em>confidenceLo</em>, and <em>confidenceHi</em>.
- * 
+ * <p>
+ * The T experiments are run in parallel on a <em>ForkJoinPool</em>.
+ * Every experiment draws from its own <em>SplittableRandom</em> stream,
+ * split in order from a single seed, and stores its threshold at its own
+ * index, so the results for a given seed are bit-identical whatever the
+ * number of threads. Each leaf task reuses one <tt>Percolation</tt> object
+ * for all the experiments it runs.
+ * </p>
+ * <p>
+ * Sites are opened in one of two orders. With <em>PERMUTATION</em> (the
+ * default) an experiment draws a random permutation of the N^2 sites lazily,
+ * by an incremental Fisher-Yates shuffle over a reusable array, and opens
+ * each site exactly once: one random number per opened site. With
+ * <em>RANDOM_SITE</em> it draws random sites and skips the ones already
+ * open, which needs more and more draws as the grid fills up.
+ * </p>
+ * <p>
+ * Since percolation is monotone in the set of open sites, the number of
+ * open sites at which an experiment first percolates tells, for every n,
+ * whether the system percolates with its first n sites open. Following
+ * Newman and Ziff, <em>percolationProbability</em> and
+ * <em>percolationCurve</em> reuse the sorted counts of all experiments to
+ * estimate the probability that a system where each site is open with
+ * probability p percolates, for any p, without running any new experiment.
+ * </p>
+ * <p>
+ * The mean and standard deviation are accumulated online, with Welford's
+ * algorithm, in the order of the experiments. Given a tolerance instead of
+ * a number of experiments, experiments are run in batches until the half
+ * width of the 95% confidence interval drops below the tolerance, each
+ * batch sized from the current estimate of the standard deviation.
+ * </p>
+ *
  * @author Ali K Thabet
  */
 public class PercolationStats {
+
+    /**
+     * The order in which an experiment opens the sites.
+     */
+    public enum OpeningOrder {
+        /** random sites, skipping those already open */
+        RANDOM_SITE,
+        /** a random permutation of all the sites, each opened once */
+        PERMUTATION
+    }
+
+    private static final int MIN_EXPERIMENTS = 30; // first batch when stopping at a tolerance
     
     //private Percolation perc; // the Percolation object
     private int size; // dimensions of site array for Percolation
     private int nExp; // number of random experiments
-    private double[] thresholds; // an array of size T to store Precolation thresholds
+    private OpeningOrder order; // order in which sites are opened
+    private RunningStats stats = new RunningStats(); // statistics of the thresholds
+    private int[] openCounts;    // sorted numbers of open sites at which experiments percolated
     
     /**
      * Initializes a PercolationStats item with a Percolation
-     * of size N x N and performs T random experiments.
+     * of size N x N and performs T random experiments, using
+     * all available processors. Every instance draws a fresh seed,
+     * so separate instances run independent experiments.
      * @param N dimension of sites grid
      * @param T number of times to repeat experiment
      * @throws IllegalArgumentException if N <= 0 or T <= 0
      */
     public PercolationStats(int N, int T) {
+        this(N, T, ThreadLocalRandom.current().nextLong(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initializes a PercolationStats item with a Percolation
+     * of size N x N and performs T random experiments on the
+     * given number of threads.
+     * @param N dimension of sites grid
+     * @param T number of times to repeat experiment
+     * @param seed seed of the random streams of the experiments
+     * @param threads number of worker threads
+     * @throws IllegalArgumentException if N <= 0, T <= 0 or threads <= 0
+     */
+    public PercolationStats(int N, int T, long seed, int threads) {
+        this(N, T, seed, threads, OpeningOrder.PERMUTATION);
+    }
+
+    /**
+     * Initializes a PercolationStats item with a Percolation
+     * of size N x N and performs T random experiments on the
+     * given number of threads, opening sites in the given order.
+     * @param N dimension of sites grid
+     * @param T number of times to repeat experiment
+     * @param seed seed of the random streams of the experiments
+     * @param threads number of worker threads
+     * @param order order in which sites are opened
+     * @throws IllegalArgumentException if N <= 0, T <= 0 or threads <= 0
+     * @throws NullPointerException if order is null
+     */
+    public PercolationStats(int N, int T, long seed, int threads, OpeningOrder order) {
         if (N <= 0) {
             throw new IllegalArgumentException("Site dimension " + N + " is not greater than 0.");
         }
         if (T <= 0) {
             throw new IllegalArgumentException("Number of experiments " + T + " is not greater than 0.");
         }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads " + threads + " is not greater than 0.");
+        }
+        if (order == null) throw new NullPointerException("Opening order is null");
         size = N;
-        nExp = T;
-        thresholds = new double[T]; // threshold for each T simulation
-        for (int i = 0; i < T; i++) {
-            thresholds[i] = randomPercolation();
+        this.order = order;
+        simulate(T, 0.0, seed, threads);
+    }
+
+    /**
+     * Initializes a PercolationStats item with a Percolation
+     * of size N x N and performs random experiments on the given
+     * number of threads until the half width of the 95% confidence
+     * interval is at most the given tolerance, or T experiments
+     * have been performed.
+     * @param N dimension of sites grid
+     * @param tolerance target half width of the 95% confidence interval
+     * @param T maximum number of times to repeat experiment
+     * @param seed seed of the random streams of the experiments
+     * @param threads number of worker threads
+     * @throws IllegalArgumentException if N <= 0, tolerance <= 0, T <= 0 or threads <= 0
+     */
+    public PercolationStats(int N, double tolerance, int T, long seed, int threads) {
+        this(N, tolerance, T, seed, threads, OpeningOrder.PERMUTATION);
+    }
+
+    /**
+     * Initializes a PercolationStats item with a Percolation
+     * of size N x N and performs random experiments on the given
+     * number of threads, opening sites in the given order, until the
+     * half width of the 95% confidence interval is at most the given
+     * tolerance, or T experiments have been performed.
+     * @param N dimension of sites grid
+     * @param tolerance target half width of the 95% confidence interval
+     * @param T maximum number of times to repeat experiment
+     * @param seed seed of the random streams of the experiments
+     * @param threads number of worker threads
+     * @param order order in which sites are opened
+     * @throws IllegalArgumentException if N <= 0, tolerance <= 0, T <= 0 or threads <= 0
+     * @throws NullPointerException if order is null
+     */
+    public PercolationStats(int N, double tolerance, int T, long seed, int threads, OpeningOrder order) {
+        if (N <= 0) {
+            throw new IllegalArgumentException("Site dimension " + N + " is not greater than 0.");
+        }
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance " + tolerance + " is not greater than 0.");
+        }
+        if (T <= 0) {
+            throw new IllegalArgumentException("Number of experiments " + T + " is not greater than 0.");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads " + threads + " is not greater than 0.");
+        }
+        if (order == null) throw new NullPointerException("Opening order is null");
+        size = N;
+        this.order = order;
+        simulate(T, tolerance, seed, threads);
+    }
+
+    /**
+     * Runs batches of experiments until T experiments have been run or
+     * the half width of the confidence interval is at most the tolerance.
+     * The batch sizes only depend on the results so far, never on the
+     * number of threads.
+     * @param T maximum number of experiments
+     * @param tolerance target half width, 0 to run exactly T experiments
+     * @param seed seed of the random streams of the experiments
+     * @param threads number of worker threads
+     */
+    private void simulate(int T, double tolerance, long seed, int threads) {
+        SplittableRandom random = new SplittableRandom(seed);
+        openCounts = new int[tolerance > 0 ? Math.min(T, MIN_EXPERIMENTS) : T];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int batch = openCounts.length;
+            while (true) {
+                runBatch(pool, threads, random, batch);
+                int remaining = T - nExp;
+                if (remaining == 0 || halfWidth() <= tolerance) break;
+                // experiments still needed at the current stddev, at most doubling
+                double needed = Math.pow(1.96*stddev()/tolerance, 2) - nExp;
+                batch = (int) Math.min(remaining, Math.min(nExp, Math.max(MIN_EXPERIMENTS, Math.ceil(needed))));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        openCounts = Arrays.copyOf(openCounts, nExp);
+        Arrays.sort(openCounts);
+    }
+
+    /**
+     * Runs the next batch of experiments in parallel, then adds their
+     * thresholds to the statistics in the order of the experiments.
+     * @param pool pool running the experiments
+     * @param threads number of worker threads
+     * @param random stream from which the experiment streams are split
+     * @param batch number of experiments to run
+     */
+    private void runBatch(ForkJoinPool pool, int threads, SplittableRandom random, int batch) {
+        // one independent stream per experiment, not per thread
+        SplittableRandom[] streams = new SplittableRandom[batch];
+        for (int i = 0; i < batch; i++) {
+            streams[i] = random.split();
+        }
+
+        int[] counts = new int[batch];
+        int grain = Math.max(1, batch / (4 * threads)); // experiments per leaf task
+        pool.invoke(new TrialTask(streams, counts, 0, batch, grain));
+
+        if (openCounts.length < nExp + batch) {
+            openCounts = Arrays.copyOf(openCounts, Math.max(nExp + batch, 2 * openCounts.length));
+        }
+        for (int i = 0; i < batch; i++) {
+            stats.add(1.0*counts[i]/(size * size));
+            openCounts[nExp++] = counts[i];
         }
     }
     
     /**
      * Randomly open sites until system percolates.
-     * @return precolation threshold
+     * @param perc an empty Percolation of size N x N
+     * @param random random stream of this experiment
+     * @return number of open sites when the system first percolates
      */
-    private double randomPercolation() {
-        Percolation perc = new Percolation(size); // initialize percolation with N x N sites
+    private int randomPercolation(Percolation perc, SplittableRandom random) {
         int count = 0; // count number of open sites
         while (!perc.percolates()) {
-            int i = StdRandom.uniform(1, size + 1);
-            int j = StdRandom.uniform(1, size + 1);
+            int i = random.nextInt(size) + 1;
+            int j = random.nextInt(size) + 1;
             if (!perc.isOpen(i, j)) {
                 perc.open(i, j);
                 count++;
             }
         }
-        return 1.0*count/(size * size);    
+        return count;
+    }
+
+    /**
+     * Open sites in random permutation order until system percolates.
+     * The permutation is drawn one site at a time, by an incremental
+     * Fisher-Yates shuffle, so only the opened prefix is ever drawn.
+     * @param perc an empty Percolation of size N x N
+     * @param sites scratch array of size N^2
+     * @param random random stream of this experiment
+     * @return number of open sites when the system first percolates
+     */
+    private int permutationPercolation(Percolation perc, int[] sites, SplittableRandom random) {
+        int n = sites.length;
+        // start from the identity so the result does not depend on earlier experiments
+        for (int k = 0; k < n; k++) {
+            sites[k] = k;
+        }
+        int count = 0; // count number of open sites
+        while (!perc.percolates()) {
+            int r = count + random.nextInt(n - count);
+            int site = sites[r];
+            sites[r] = sites[count];
+            sites[count] = site;
+            perc.openSite(site);
+            count++;
+        }
+        return count;
+    }
+
+    // runs experiments lo to hi - 1, splitting the range until it is small enough
+    private class TrialTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SplittableRandom[] streams;
+        private final int[] counts;
+        private final int lo, hi, grain;
+
+        TrialTask(SplittableRandom[] streams, int[] counts, int lo, int hi, int grain) {
+            this.streams = streams;
+            this.counts = counts;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                Percolation perc = new Percolation(size);
+                int[] sites = null;
+                if (order == OpeningOrder.PERMUTATION) sites = new int[size * size];
+                for (int i = lo; i < hi; i++) {
+                    if (i > lo) perc.clear();
+                    if (sites == null) counts[i] = randomPercolation(perc, streams[i]);
+                    else               counts[i] = permutationPercolation(perc, sites, streams[i]);
+                }
+                return;
+            }
+            int mid = lo + (hi - lo) / 2;
+            invokeAll(new TrialTask(streams, counts, lo, mid, grain),
+                      new TrialTask(streams, counts, mid, hi, grain));
+        }
+    }
+
+    // mean and sum of squared deviations, updated one value at a time (Welford)
+    private static class RunningStats {
+        private int n;
+        private double mean;
+        private double m2;
+
+        void add(double x) {
+            n++;
+            double delta = x - mean;
+            mean += delta / n;
+            m2 += delta * (x - mean);
+        }
+
+        double mean() {
+            return mean;
+        }
+
+        double stddev() {
+            return Math.sqrt(m2 / (n - 1));
+        }
     }
     
     /**
@@ -63,7 +341,7 @@ public class PercolationStats {
      * @return sample mean of percolation threshold
      */
     public double mean() {
-        return StdStats.mean(thresholds);
+        return stats.mean();
     }
     
     /**
@@ -71,7 +349,20 @@ public class PercolationStats {
      * @return sample standard deviation of percolation threshold
      */
     public double stddev() {
-        return StdStats.stddev(thresholds);
+        return stats.stddev();
+    }
+
+    /**
+     * Returns the number of experiments performed.
+     * @return number of experiments
+     */
+    public int numberOfExperiments() {
+        return nExp;
+    }
+
+    // half width of the 95% confidence interval
+    private double halfWidth() {
+        return 1.96*stddev()/Math.sqrt(nExp);
     }
     
     /**
@@ -79,7 +370,7 @@ public class PercolationStats {
      * @return low  endpoint of 95% confidence interval
      */
     public double confidenceLo() {
-        return mean() - (1.96*stddev()/Math.sqrt(nExp));
+        return mean() - halfWidth();
     }
     
     /**
@@ -87,27 +378,120 @@ public class PercolationStats {
      * @return high endpoint of 95% confidence interval
      */
     public double confidenceHi() {
-        return mean() + (1.96*stddev()/Math.sqrt(nExp));
+        return mean() + halfWidth();
+    }
+    
+    // fraction of experiments that percolated with at most n open sites
+    private double percolatedFraction(int n) {
+        int lo = 0, hi = openCounts.length; // first index with a count > n
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (openCounts[mid] <= n) lo = mid + 1;
+            else                      hi = mid;
+        }
+        return 1.0*lo/openCounts.length;
+    }
+
+    /**
+     * Estimates the probability that the system percolates when each
+     * site is open independently with probability p. The fraction of
+     * experiments percolating with n open sites is weighted by the
+     * binomial probability of having n open sites, computed outwards
+     * from its mode and cut off once the terms become negligible.
+     * @param p probability that a site is open
+     * @return estimated probability of percolation
+     * @throws IllegalArgumentException unless 0 <= p <= 1
+     */
+    public double percolationProbability(double p) {
+        if (!(p >= 0.0 && p <= 1.0)) {
+            throw new IllegalArgumentException("Probability " + p + " is not between 0 and 1.");
+        }
+        int n = size * size;
+        if (p == 0.0) return percolatedFraction(0);
+        if (p == 1.0) return percolatedFraction(n);
+
+        int mode = (int) Math.min(n, Math.floor((n + 1) * p));
+        double ratio = p / (1 - p);
+        double sum = 1.0;                           // binomial terms relative to the mode
+        double total = percolatedFraction(mode);    // weighted fractions, same scale
+
+        double term = 1.0;
+        for (int k = mode; k < n && term > 1e-17; k++) {
+            term *= ratio * (n - k) / (k + 1);
+            sum += term;
+            total += term * percolatedFraction(k + 1);
+        }
+        term = 1.0;
+        for (int k = mode; k > 0 && term > 1e-17; k--) {
+            term *= k / (ratio * (n - k + 1));
+            sum += term;
+            total += term * percolatedFraction(k - 1);
+        }
+        return total / sum;
+    }
+
+    /**
+     * Estimates the probability of percolation at the evenly spaced
+     * probabilities 0, 1/points, 2/points, ..., 1.
+     * @param points number of intervals between 0 and 1
+     * @return array of points + 1 estimated probabilities of percolation
+     * @throws IllegalArgumentException if points <= 0
+     */
+    public double[] percolationCurve(int points) {
+        if (points <= 0) {
+            throw new IllegalArgumentException("Number of points " + points + " is not greater than 0.");
+        }
+        double[] curve = new double[points + 1];
+        for (int k = 0; k <= points; k++) {
+            curve[k] = percolationProbability(1.0*k/points);
+        }
+        return curve;
     }
     
     /**
      * Test client for PercolationStats.
      * 
-     * @param args 2 command line arguments N and T
+     * @param args command line arguments N and T, optionally followed
+     *             by the seed, the number of threads and, in any order,
+     *             the opening order (RANDOM_SITE or PERMUTATION) and a
+     *             tolerance on the confidence interval, T then being the
+     *             maximum
      */
     public static void main(String[] args) {
         
-        if (args.length != 2) {
-            throw new IllegalArgumentException("Should be 2 input arguments, got " + args.length +" instead.");
+        if (args.length != 2 && (args.length < 4 || args.length > 6)) {
+            throw new IllegalArgumentException("Should be 2, 4, 5 or 6 input arguments, got " + args.length +" instead.");
         }
         
         int N = Integer.parseInt(args[0]);
         int T = Integer.parseInt(args[1]);
         Stopwatch stp = new Stopwatch();
-        PercolationStats psStats = new PercolationStats(N, T);
+        PercolationStats psStats;
+        if (args.length == 2) {
+            psStats = new PercolationStats(N, T);
+        } else {
+            long seed = Long.parseLong(args[2]);
+            int threads = Integer.parseInt(args[3]);
+            Double tolerance = null;
+            OpeningOrder order = OpeningOrder.PERMUTATION;
+            for (int i = 4; i < args.length; i++) {
+                try {
+                    tolerance = Double.parseDouble(args[i]);
+                } catch (NumberFormatException e) {
+                    order = OpeningOrder.valueOf(args[i]);
+                }
+            }
+            if (tolerance != null) psStats = new PercolationStats(N, tolerance, T, seed, threads, order);
+            else                   psStats = new PercolationStats(N, T, seed, threads, order);
+        }
+        StdOut.println("experiments = " + psStats.numberOfExperiments());
         StdOut.println("mean = " + psStats.mean());
         StdOut.println("stddev = " + psStats.stddev());
         StdOut.println("95% confidence interval = " + psStats.confidenceLo() + ", " + psStats.confidenceHi());
+        double[] curve = psStats.percolationCurve(20);
+        for (int k = 0; k < curve.length; k++) {
+            StdOut.printf("P(percolates | p = %.2f) = %.4f\n", 1.0*k/(curve.length - 1), curve[k]);
+        }
         StdOut.println("Time elapsed: " + stp.elapsedTime());
     }
 }
@@ -15,6 +15,19 @@ import java.util.Comparator;
 
 public class Point implements Comparable<Point> {
 
+    /**
+     * The slope key of a point with itself.
+     */
+    public static final long SAME_POINT_KEY = Long.MIN_VALUE;
+
+    /**
+     * The slope key of all the slopes that have a term of 2^31 or more
+     * in lowest terms, which only occur between points whose coordinates
+     * differ by 2^31 or more. Such slopes are told apart by their
+     * numerator and denominator.
+     */
+    public static final long WIDE_SLOPE_KEY = Long.MIN_VALUE + 1;
+
     private final int x;     // x-coordinate of this point
     private final int y;     // y-coordinate of this point
 
@@ -41,6 +54,37 @@ public class Point implements Comparable<Point> {
         Point q = new Point(3, 9);
         Point w = new Point(3, 5);
         StdOut.println(p.slopeOrder().compare(q, w));
+        StdOut.println(p.slopeKey(q) == new Point(2, 5).slopeKey(new Point(5, 17)));
+
+        // slopes whose cross products overflow a long
+        Point corner = new Point(Integer.MIN_VALUE, Integer.MIN_VALUE);
+        Point a = new Point(Integer.MAX_VALUE, Integer.MAX_VALUE - 1);
+        Point b = new Point(Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 2);
+        StdOut.println(corner.slopeOrder().compare(a, b) > 0);
+        corner = new Point(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        a = new Point(Integer.MAX_VALUE, Integer.MIN_VALUE + 1);
+        b = new Point(Integer.MAX_VALUE - 1, Integer.MIN_VALUE);
+        StdOut.println(corner.slopeOrder().compare(a, b) > 0);
+    }
+
+    /**
+     * Returns the x-coordinate of this point, for the
+     * collinear detectors that pack points into arrays.
+     *
+     * @return the x-coordinate
+     */
+    int x() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of this point, for the
+     * collinear detectors that pack points into arrays.
+     *
+     * @return the y-coordinate
+     */
+    int y() {
+        return y;
     }
 
     /**
@@ -81,6 +125,187 @@ public class Point implements Comparable<Point> {
         return (double) (that.y - this.y)/(that.x - this.x);
     }
 
+    /**
+     * Returns an exact key of the slope between this point and the
+     * specified point: two pairs of points have the same key if and only
+     * if they have the same slope, unless the key is <tt>WIDE_SLOPE_KEY</tt>.
+     * The key is the slope reduced to lowest terms dy/dx, with dx made
+     * positive, packed as dy in the upper 32 bits and dx in the lower 32
+     * bits. A vertical slope is 1/0, a horizontal slope 0/1, and the key
+     * of two equal points is <tt>SAME_POINT_KEY</tt>. The terms of a
+     * reduced slope take up to 33 bits, and slopes with a term of 2^31
+     * or more all have the key <tt>WIDE_SLOPE_KEY</tt>: when points may be
+     * 2^31 or more apart, the exact key of a slope is the pair of its
+     * <em>slopeNumerator</em> and <em>slopeDenominator</em>.
+     * Keys are not ordered as the slopes are: they are meant to group
+     * equal slopes, by sorting or hashing, without any division.
+     *
+     * @param  that the other point
+     * @return the slope key between this point and the specified point
+     */
+    public long slopeKey(Point that) {
+        return slopeKey(this.x, this.y, that.x, that.y);
+    }
+
+    /**
+     * Returns the numerator dy of the slope between this point and the
+     * specified point, reduced to lowest terms dy/dx with dx made positive,
+     * as in the slopeKey() method. It is 0 for two equal points.
+     *
+     * @param  that the other point
+     * @return the numerator of the reduced slope
+     */
+    public long slopeNumerator(Point that) {
+        return slopeNumerator(this.x, this.y, that.x, that.y);
+    }
+
+    /**
+     * Returns the denominator dx of the slope between this point and the
+     * specified point, reduced to lowest terms dy/dx with dx made positive,
+     * as in the slopeKey() method. It is 0 for two equal points.
+     *
+     * @param  that the other point
+     * @return the denominator of the reduced slope
+     */
+    public long slopeDenominator(Point that) {
+        return slopeDenominator(this.x, this.y, that.x, that.y);
+    }
+
+    /**
+     * Returns the slope key from (x0, y0) to (x1, y1),
+     * as defined in the slopeKey() method.
+     *
+     * @param x0 the <em>x</em>-coordinate of the first point
+     * @param y0 the <em>y</em>-coordinate of the first point
+     * @param x1 the <em>x</em>-coordinate of the second point
+     * @param y1 the <em>y</em>-coordinate of the second point
+     * @return the slope key between the two points
+     */
+    static long slopeKey(int x0, int y0, int x1, int y1) {
+        long dx = (long) x1 - x0;
+        long dy = (long) y1 - y0;
+        if (dx < 0) {
+            dx = -dx;
+            dy = -dy;
+        }
+        if (dx == 0) return dy == 0 ? SAME_POINT_KEY : 1L << 32;
+        if (dy == 0) return 1;
+        if (dx <= Integer.MAX_VALUE && dy <= Integer.MAX_VALUE && dy >= -Integer.MAX_VALUE) {
+            int g = gcd((int) dx, (int) Math.abs(dy));
+            return (long) ((int) dy / g) << 32 | (int) dx / g;
+        }
+        long g = gcd(dx, Math.abs(dy));
+        dx /= g;
+        dy /= g;
+        if (dx > Integer.MAX_VALUE || dy > Integer.MAX_VALUE || dy < -Integer.MAX_VALUE) return WIDE_SLOPE_KEY;
+        return dy << 32 | dx;
+    }
+
+    /**
+     * Returns the numerator of the reduced slope from (x0, y0) to (x1, y1),
+     * as defined in the slopeNumerator() method.
+     *
+     * @param x0 the <em>x</em>-coordinate of the first point
+     * @param y0 the <em>y</em>-coordinate of the first point
+     * @param x1 the <em>x</em>-coordinate of the second point
+     * @param y1 the <em>y</em>-coordinate of the second point
+     * @return the numerator of the reduced slope
+     */
+    static long slopeNumerator(int x0, int y0, int x1, int y1) {
+        long dx = (long) x1 - x0;
+        long dy = (long) y1 - y0;
+        if (dx < 0) {
+            dx = -dx;
+            dy = -dy;
+        }
+        if (dx == 0) return dy == 0 ? 0 : 1;
+        if (dy == 0) return 0;
+        return dy / gcd(dx, Math.abs(dy));
+    }
+
+    /**
+     * Returns the denominator of the reduced slope from (x0, y0) to (x1, y1),
+     * as defined in the slopeDenominator() method.
+     *
+     * @param x0 the <em>x</em>-coordinate of the first point
+     * @param y0 the <em>y</em>-coordinate of the first point
+     * @param x1 the <em>x</em>-coordinate of the second point
+     * @param y1 the <em>y</em>-coordinate of the second point
+     * @return the denominator of the reduced slope
+     */
+    static long slopeDenominator(int x0, int y0, int x1, int y1) {
+        long dx = Math.abs((long) x1 - x0);
+        long dy = Math.abs((long) y1 - y0);
+        if (dx == 0) return 0;
+        if (dy == 0) return 1;
+        return dx / gcd(dx, dy);
+    }
+
+    // greatest common divisor of two positive integers, by Stein's binary algorithm
+    private static int gcd(int a, int b) {
+        int shift = Integer.numberOfTrailingZeros(a | b);
+        a >>>= Integer.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>>= Integer.numberOfTrailingZeros(b);
+            int min = Math.min(a, b);
+            b = Math.max(a, b) - min;
+            a = min;
+        }
+        return a << shift;
+    }
+
+    // greatest common divisor of two positive longs, by Stein's binary algorithm
+    private static long gcd(long a, long b) {
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>>= Long.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>>= Long.numberOfTrailingZeros(b);
+            long min = Math.min(a, b);
+            b = Math.max(a, b) - min;
+            a = min;
+        }
+        return a << shift;
+    }
+
+    // sign of the difference between the slopes dy1/dx1 and dy2/dx2,
+    // with the same-point slope lowest and the vertical slope highest
+    private static int compareSlopes(long dy1, long dx1, long dy2, long dx2) {
+        if (dx1 < 0) {
+            dx1 = -dx1;
+            dy1 = -dy1;
+        }
+        if (dx2 < 0) {
+            dx2 = -dx2;
+            dy2 = -dy2;
+        }
+        int kind1 = dx1 != 0 ? 1 : dy1 == 0 ? 0 : 2; // 0 same point, 1 finite, 2 vertical
+        int kind2 = dx2 != 0 ? 1 : dy2 == 0 ? 0 : 2;
+        if (kind1 != kind2 || kind1 != 1) return Integer.compare(kind1, kind2);
+        // the products take up to 66 bits: compare them as 128-bit integers,
+        // the signed high words first and then the unsigned low words
+        long high1 = multiplyHigh(dy1, dx2);
+        long high2 = multiplyHigh(dy2, dx1);
+        if (high1 != high2) return Long.compare(high1, high2);
+        return Long.compareUnsigned(dy1 * dx2, dy2 * dx1);
+    }
+
+    /**
+     * Returns the upper 64 bits of the 128-bit product of two longs,
+     * as Math.multiplyHigh does from Java 9 on.
+     *
+     * @param x the first value
+     * @param y the second value
+     * @return the upper 64 bits of x * y
+     */
+    static long multiplyHigh(long x, long y) {
+        // section 8-2 of Hacker's Delight, with 32-bit digits
+        long x1 = x >> 32, x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32, y2 = y & 0xFFFFFFFFL;
+        long t = x1 * y2 + (x2 * y2 >>> 32);
+        long z1 = (t & 0xFFFFFFFFL) + x2 * y1;
+        return x1 * y1 + (t >> 32) + (z1 >> 32);
+    }
+
     /**
      * Compares two points by y-coordinate, breaking ties by x-coordinate.
      * Formally, the invoking point (x0, y0) is less than the argument point
@@ -104,7 +329,9 @@ public class Point implements Comparable<Point> {
 
     /**
      * Compares two points by the slope they make with this point.
-     * The slope is defined as in the slopeTo() method.
+     * The slope is defined as in the slopeTo() method, but the comparison
+     * is exact: slopes are compared by cross-multiplication of their
+     * differences, without any division.
      *
      * @return the Comparator that defines this ordering on points
      */
@@ -128,12 +355,8 @@ public class Point implements Comparable<Point> {
 
         public int compare(Point point1, Point point2) {
             //compareCount++;
-            double slope1 = slopeTo(point1);
-            double slope2 = slopeTo(point2);
-
-            if (slope1 < slope2) return -1;
-            if (slope1 > slope2) return +1;
-            return 0;
+            return compareSlopes((long) point1.y - y, (long) point1.x - x,
+                                 (long) point2.y - y, (long) point2.x - x);
         }
     }
 }
\ No newline at end of file
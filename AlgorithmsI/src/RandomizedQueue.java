@@ -1,9 +1,13 @@
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The <tt>RandomizedQueue</tt> class implements a different
@@ -12,19 +16,83 @@ import java.util.NoSuchElementException;
  * <p>
  * The implementation uses an array with resizing...
  * </p>
+ * <p>
+ * Random indices come from a <em>RandomSource</em> given to the
+ * constructor, so that every queue can have its own stream. By default
+ * the queue uses <em>ThreadLocalRandom</em>, which needs no
+ * synchronization between threads driving different queues. A queue
+ * built from a seed uses its own <em>SplittableRandom</em> and gives
+ * reproducible results; like the queue itself, that stream must only be
+ * used by one thread at a time.
+ * </p>
+ * <p>
+ * For batches of items, <em>enqueueAll</em> reserves capacity once and
+ * copies the whole batch, <em>dequeue(k)</em> runs k steps of a
+ * Fisher-Yates shuffle from the end of the array and shrinks the array at
+ * most once, and <em>sample(k, withReplacement)</em> draws k items without
+ * changing the queue.
+ * </p>
  *
  * @author Ali K Thabet
  **/
 public class RandomizedQueue<Item> implements Iterable<Item> {
 
+    /**
+     * A source of uniformly distributed random indices,
+     * such as <tt>new SplittableRandom(seed)::nextInt</tt>.
+     */
+    public interface RandomSource {
+        /**
+         * Returns a random integer uniformly in [0, bound).
+         *
+         * @param bound the upper bound (exclusive), positive
+         * @return a random integer between 0 and bound - 1
+         */
+        int nextInt(int bound);
+    }
+
+    // draws from the generator of the calling thread
+    private static final RandomSource THREAD_LOCAL = new RandomSource() {
+        public int nextInt(int bound) {
+            return ThreadLocalRandom.current().nextInt(bound);
+        }
+    };
+
     private Item[] a;         // array of items
     private int N;            // number of elements in random queue
+    private final RandomSource random; // source of random indices
 
 
     /**
-     * Initializes an empty randomized queue.
+     * Initializes an empty randomized queue
+     * drawing from the thread-local generator.
      */
     public RandomizedQueue() {
+        this(THREAD_LOCAL);
+    }
+
+    /**
+     * Initializes an empty randomized queue with its own
+     * reproducible random stream.
+     *
+     * @param seed the seed of the random stream
+     */
+    public RandomizedQueue(long seed) {
+        this(new SplittableRandom(seed)::nextInt);
+    }
+
+    /**
+     * Initializes an empty randomized queue
+     * drawing from the given source.
+     *
+     * @param random the source of random indices
+     * @throws NullPointerException if random is NULL
+     */
+    public RandomizedQueue(RandomSource random) {
+        if (random == null) {
+            throw new java.lang.NullPointerException("Random source provided is NULL");
+        }
+        this.random = random;
         // cast needed since no generic array creation in Java
         a = (Item[]) new Object[2];
     }
@@ -69,6 +137,19 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         a = temp;
     }
 
+    // grow the array, by doubling, until it holds at least n items
+    private void ensureCapacity(int n) {
+        int capacity = a.length;
+        while (capacity < n) capacity *= 2;
+        if (capacity != a.length) resize(capacity);
+    }
+
+    // check that k items can be taken from this queue
+    private void checkCount(int k, int available) {
+        if (k < 0) throw new IllegalArgumentException("Number of items " + k + " is negative");
+        if (k > available) throw new NoSuchElementException("Queue underflow");
+    }
+
     /**
      * Adds the item to this queue.
      *
@@ -83,6 +164,25 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         a[N++] = item;                            // add item
     }
 
+    /**
+     * Adds all the items of a collection to this queue, growing
+     * the array at most once.
+     *
+     * @param items the items to add
+     * @throws NullPointerException if items or any of its items is NULL
+     */
+    public void enqueueAll(Collection<? extends Item> items) {
+        if (items == null) throw new NullPointerException("Collection provided is NULL");
+        Object[] batch = items.toArray();
+        for (Object item : batch) {
+            if (item == null) throw new NullPointerException("Item provided is NULL");
+        }
+        ensureCapacity(N + batch.length);
+        for (Object item : batch) {
+            a[N++] = (Item) item;
+        }
+    }
+
     /**
      * Removes and returns a random item on this queue
      *
@@ -91,7 +191,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      */
     public Item dequeue() {
         if (isEmpty()) throw new NoSuchElementException("Queue underflow");
-        int randIdx = StdRandom.uniform(N);
+        int randIdx = random.nextInt(N);
         Item item = a[randIdx];
         a[randIdx] = a[--N];    // move last item to removed index
         a[N] = null;          // to avoid loitering
@@ -101,6 +201,31 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     }
 
 
+    /**
+     * Removes and returns k distinct random items of this queue,
+     * shrinking the array at most once.
+     *
+     * @param k number of items to remove
+     * @return the removed items, in random order
+     * @throws IllegalArgumentException if k is negative
+     * @throws java.util.NoSuchElementException if this queue has fewer than k items
+     */
+    public List<Item> dequeue(int k) {
+        checkCount(k, N);
+        List<Item> items = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            int randIdx = random.nextInt(N);
+            items.add(a[randIdx]);
+            a[randIdx] = a[--N];    // move last item to removed index
+            a[N] = null;          // to avoid loitering
+        }
+        // shrink size of array once, if necessary
+        int capacity = a.length;
+        while (N > 0 && N <= capacity / 4) capacity /= 2;
+        if (capacity != a.length) resize(capacity);
+        return items;
+    }
+
     /**
      * Returns (but does not remove) a random item on this queue
      *
@@ -109,28 +234,57 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      */
     public Item sample() {
         if (isEmpty()) throw new NoSuchElementException("Queue underflow");
-        return a[StdRandom.uniform(N)];
+        return a[random.nextInt(N)];
     }
 
+    /**
+     * Returns (but does not remove) k random items of this queue.
+     * Without replacement the items are distinct, and are the first k
+     * items of a random iteration order, found in O(k) time.
+     *
+     * @param k number of items to sample
+     * @param withReplacement whether an item may be returned more than once
+     * @return the sampled items, in random order
+     * @throws IllegalArgumentException if k is negative
+     * @throws java.util.NoSuchElementException if this queue is empty and k is
+     *         positive, or if withReplacement is false and this queue has fewer
+     *         than k items
+     */
+    public List<Item> sample(int k, boolean withReplacement) {
+        checkCount(k, withReplacement && N > 0 ? Integer.MAX_VALUE : N);
+        List<Item> items = new ArrayList<>(k);
+        if (withReplacement) {
+            for (int i = 0; i < k; i++) items.add(a[random.nextInt(N)]);
+        } else {
+            Iterator<Item> it = iterator();
+            for (int i = 0; i < k; i++) items.add(it.next());
+        }
+        return items;
+    }
+
+    /**
+     * Returns an iterator that iterates over the items
+     * in this queue in uniformly random order. The queue
+     * must not be modified while the iterator is in use.
+     *
+     * @return an iterator over the items in random order
+     */
     @Override
     public Iterator<Item> iterator() {
-        return new ArrayIterator<Item>();
+        return new ArrayIterator();
     }
 
     // an iterator, doesn't implement remove() since it's optional
-    private class ArrayIterator<Item> implements Iterator<Item> {
+    // Runs a Fisher-Yates shuffle of the indices 0 to N - 1 one step per
+    // call to next(), without materializing the permutation: only the
+    // positions displaced by earlier swaps are kept, in a small open
+    // addressing map, so taking k items costs O(k) time and memory.
+    private class ArrayIterator implements Iterator<Item> {
 
-        private int i = 0;
-        private Item[] shuffleArray =
-                (Item[]) new Object[N]; // Array of elements not null
-
-        ArrayIterator() {
-            //shuffleArray = (Item[]) a;
-            for (int k = 0; k < N; k++) {
-                shuffleArray[k] = (Item) a[k];
-            }
-            StdRandom.shuffle(shuffleArray);
-        }
+        private int i = 0;            // number of items returned
+        private int[] keys = new int[8];   // displaced positions + 1, 0 if empty slot
+        private int[] values = new int[8]; // index now held at each displaced position
+        private int displaced = 0;    // number of displaced positions
 
         public boolean hasNext() {
             return i < N;
@@ -138,12 +292,58 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
         public Item next() {
             if (!hasNext()) throw new NoSuchElementException();
-            return shuffleArray[i++];
+            int r = i + random.nextInt(N - i);
+            int pick = get(r);
+            if (r != i) put(r, get(i)); // swap positions i and r
+            i++;
+            return a[pick];
         }
 
         public void remove() {
             throw new UnsupportedOperationException();
         }
+
+        // slot of position p in the map, or the empty slot where it belongs
+        private int slot(int p) {
+            int h = p * 0x9E3779B9;
+            int mask = keys.length - 1;
+            int k = (h ^ (h >>> 16)) & mask;
+            while (keys[k] != 0 && keys[k] != p + 1) k = (k + 1) & mask;
+            return k;
+        }
+
+        // index held at position p, p itself unless displaced
+        private int get(int p) {
+            int k = slot(p);
+            return keys[k] == 0 ? p : values[k];
+        }
+
+        private void put(int p, int index) {
+            int k = slot(p);
+            if (keys[k] == 0) {
+                if (2 * (displaced + 1) > keys.length) {
+                    grow();
+                    k = slot(p);
+                }
+                keys[k] = p + 1;
+                displaced++;
+            }
+            values[k] = index;
+        }
+
+        // double the map and reinsert the displaced positions
+        private void grow() {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldValues.length];
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] != 0) {
+                    int j = slot(oldKeys[k] - 1);
+                    keys[j] = oldKeys[k];
+                    values[j] = oldValues[k];
+                }
+            }
+        }
     }
 
     /**
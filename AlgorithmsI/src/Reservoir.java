@@ -0,0 +1,184 @@
+import edu.princeton.cs.algs4.StdIn;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The <tt>Reservoir</tt> class implements a uniform random sample of
+ * <em>k</em> items from a stream of unknown length, using memory
+ * proportional to <em>k</em> only.
+ * <p>
+ * Two algorithms are supported. <em>Algorithm R</em> draws one random
+ * number per item and keeps the <em>i</em>-th item with probability
+ * <em>k / i</em>. <em>Algorithm L</em> (the default) draws, after each
+ * kept item, the number of items to skip before the next one is kept,
+ * so it only draws O(<em>k</em> log(<em>N / k</em>)) random numbers for
+ * <em>N</em> items. After <em>N</em> items, every subset of <em>k</em>
+ * of them is equally likely to be in the reservoir, in either case.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class Reservoir<Item> implements Iterable<Item> {
+
+    /**
+     * The sampling algorithm.
+     */
+    public enum Algorithm {
+        /** one random number per item */
+        R,
+        /** geometric skips between kept items */
+        L
+    }
+
+    private final Item[] a;          // sampled items
+    private final Algorithm algorithm;
+    private final SplittableRandom random;
+    private long seen = 0;           // number of items offered
+    private long next;               // 1-based index of the next item kept (Algorithm L)
+    private double w;                // largest of k uniform variables (Algorithm L)
+
+    /**
+     * Initializes an empty reservoir of k items using Algorithm L.
+     *
+     * @param k number of items to sample
+     * @throws IllegalArgumentException if k <= 0
+     */
+    public Reservoir(int k) {
+        this(k, Algorithm.L, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Initializes an empty reservoir of k items using the given
+     * algorithm and a reproducible random stream.
+     *
+     * @param k number of items to sample
+     * @param algorithm the sampling algorithm
+     * @param seed the seed of the random stream
+     * @throws IllegalArgumentException if k <= 0
+     * @throws NullPointerException if algorithm is NULL
+     */
+    public Reservoir(int k, Algorithm algorithm, long seed) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Sample size " + k + " is not greater than 0.");
+        }
+        if (algorithm == null) {
+            throw new java.lang.NullPointerException("Algorithm provided is NULL");
+        }
+        // cast needed since no generic array creation in Java
+        a = (Item[]) new Object[k];
+        this.algorithm = algorithm;
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Returns the number of items in the reservoir,
+     * that is the smaller of k and the number of items offered.
+     *
+     * @return the number of items in the reservoir
+     */
+    public int size() {
+        return (int) Math.min(seen, a.length);
+    }
+
+    /**
+     * Returns the number of items offered so far.
+     *
+     * @return the number of items offered
+     */
+    public long count() {
+        return seen;
+    }
+
+    // uniform random number in (0, 1]
+    private double uniform() {
+        return 1.0 - random.nextDouble();
+    }
+
+    // draw the index of the next kept item, for Algorithm L
+    private void skip() {
+        double gap = Math.floor(Math.log(uniform()) / Math.log1p(-w));
+        if (gap >= Long.MAX_VALUE - seen) next = Long.MAX_VALUE;
+        else                              next = seen + (long) gap + 1;
+    }
+
+    /**
+     * Offers an item to the reservoir.
+     *
+     * @param item the item
+     * @throws NullPointerException if item is NULL
+     */
+    public void add(Item item) {
+        if (item == null) {
+            throw new java.lang.NullPointerException("Item provided is NULL");
+        }
+        seen++;
+        int k = a.length;
+        if (seen <= k) {
+            a[(int) seen - 1] = item;
+            if (seen == k && algorithm == Algorithm.L) {
+                w = Math.exp(Math.log(uniform()) / k);
+                skip();
+            }
+        }
+        else if (algorithm == Algorithm.R) {
+            long j = random.nextLong(seen);
+            if (j < k) a[(int) j] = item;
+        }
+        else if (seen == next) {
+            a[random.nextInt(k)] = item;
+            w *= Math.exp(Math.log(uniform()) / k);
+            skip();
+        }
+    }
+
+    /**
+     * Returns an iterator over the items in the reservoir.
+     *
+     * @return an iterator over the sampled items
+     */
+    @Override
+    public Iterator<Item> iterator() {
+        return new ArrayIterator();
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private class ArrayIterator implements Iterator<Item> {
+        private int i = 0;
+
+        public boolean hasNext() {
+            return i < size();
+        }
+
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return a[i++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Unit tests the <tt>Reservoir</tt> data type: samples k strings
+     * from standard input.
+     *
+     * @param args the sample size k, and optionally the algorithm R or L
+     */
+    public static void main(String[] args) {
+        int k = Integer.parseInt(args[0]);
+        Algorithm algorithm = args.length > 1 ? Algorithm.valueOf(args[1]) : Algorithm.L;
+        Reservoir<String> reservoir =
+                new Reservoir<>(k, algorithm, ThreadLocalRandom.current().nextLong());
+        while (!StdIn.isEmpty()) {
+            reservoir.add(StdIn.readString());
+        }
+        for (String s : reservoir) {
+            StdOut.println(s);
+        }
+    }
+}
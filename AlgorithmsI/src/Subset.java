@@ -1,27 +1,286 @@
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * The <tt>Subset</tt> class implements a client
  * that takes an input <em>k</em> and returns a
  * subset of <em>k</em> strings from a collection
  * of <em>N</em> strings read from standard input
+ * <p>
+ * By default all <em>N</em> strings are stored in a
+ * <tt>RandomizedQueue</tt>. The streaming modes only keep
+ * <em>k</em> strings in memory: <em>R</em> and <em>L</em> sample
+ * uniformly with a <tt>Reservoir</tt> using Algorithm R or L, and
+ * <em>weighted</em> reads pairs of string and weight and samples
+ * with a <tt>WeightedReservoir</tt>.
+ * </p>
+ * <p>
+ * The <em>sharded</em> mode reads a file instead, on several threads:
+ * the file is cut into byte ranges aligned on line starts, each thread
+ * memory maps its range and samples the strings in it into a
+ * <tt>LongReservoir</tt> with unit weights, and the reservoirs are merged
+ * at the end into a uniform sample of the whole file. Strings are sampled
+ * as (offset, length) handles into the file, so only the <em>k</em>
+ * strings of the sample are decoded.
+ * </p>
+ * <p>
+ * The reservoirs keep their items in an order that depends on how they
+ * were sampled, so every mode prints its sample in random order, through
+ * the iterator of a <tt>RandomizedQueue</tt>. A <em>k</em> of 0 prints
+ * nothing.
+ * </p>
  *
  * @author Ali K Thabet
  **/
 public class Subset {
-    public static void main(String[] args) {
 
-        int k = Integer.parseInt(args[0]);
+    private static final long MAX_SHARD = 1L << 30;  // largest shard mapped at once
+    private static final int LENGTH_BITS = 24;       // bits of a handle holding the length
+    private static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1; // longest string, in bytes
+    private static final int SCAN_BLOCK = 1 << 16;   // bytes read at once when looking for a line start
+
+    /**
+     * Returns the offsets at which the shards of a file start, followed
+     * by the size of the file. Each shard starts at the beginning of a line.
+     *
+     * @param channel the file
+     * @param shards number of shards
+     * @return array of shards + 1 increasing offsets
+     * @throws IOException if the file cannot be read
+     */
+    private static long[] shardOffsets(FileChannel channel, int shards) throws IOException {
+        long size = channel.size();
+        long[] offsets = new long[shards + 1];
+        offsets[shards] = size;
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        for (int i = 1; i < shards; i++) {
+            offsets[i] = lineStart(channel, Math.max(offsets[i - 1], size / shards * i), block);
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns the first offset at or after p that starts a line, that is
+     * p itself if it is 0, or the offset after the first newline at or
+     * after p - 1, or the size of the file if there is none. The file is
+     * read in blocks, which are searched for the newline.
+     *
+     * @param channel the file
+     * @param p the offset
+     * @param block buffer receiving the blocks
+     * @return the offset of the start of the line
+     * @throws IOException if the file cannot be read
+     */
+    private static long lineStart(FileChannel channel, long p, ByteBuffer block) throws IOException {
+        long size = channel.size();
+        if (p <= 0 || p >= size) return p;
+        for (long from = p - 1; from < size; ) {
+            block.clear();
+            int read = channel.read(block, from);
+            if (read < 0) break;
+            for (int k = 0; k < read; k++) {
+                if (block.get(k) == '\n') return from + k + 1;
+            }
+            from += read;
+        }
+        return size;
+    }
+
+    /**
+     * Samples the whitespace separated strings between two offsets
+     * of a file, giving each string a unit weight. The range is memory
+     * mapped and no string is decoded: each one enters the reservoir as
+     * a handle packing its offset in the file and its length in bytes.
+     *
+     * @param channel the file
+     * @param from offset of the first byte
+     * @param to offset after the last byte
+     * @param reservoir the reservoir receiving the handles
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a string is longer than 16MB
+     *         or the range is longer than 2GB
+     */
+    private static void sampleShard(FileChannel channel, long from, long to,
+                                    LongReservoir reservoir) throws IOException {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Shard of " + (to - from) + " bytes is too long to map.");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        int n = buffer.limit();
+        int start = -1;          // index of the first byte of the current string, -1 if none
+        for (int i = 0; i <= n; i++) {
+            if (i == n || isWhitespace(buffer.get(i))) {
+                if (start >= 0) reservoir.add(handle(from + start, i - start), 1.0);
+                start = -1;
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    // pack the offset and length of a string of the file into a long
+    private static long handle(long offset, int length) {
+        if (length > MAX_LENGTH) {
+            throw new IllegalArgumentException("String at offset " + offset + " is longer than "
+                    + MAX_LENGTH + " bytes.");
+        }
+        return offset << LENGTH_BITS | length;
+    }
+
+    /**
+     * Reads and decodes the string of a file designated by a handle.
+     *
+     * @param channel the file
+     * @param handle packed offset and length of the string
+     * @return the string
+     * @throws IOException if the file cannot be read
+     */
+    private static String decode(FileChannel channel, long handle) throws IOException {
+        long offset = handle >>> LENGTH_BITS;
+        ByteBuffer bytes = ByteBuffer.allocate((int) (handle & MAX_LENGTH));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, offset + bytes.position()) < 0) {
+                throw new EOFException("File truncated at offset " + offset);
+            }
+        }
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
 
-        RandomizedQueue<String> randomQueue = new RandomizedQueue<>();
-        while (!StdIn.isEmpty()) {
-            randomQueue.enqueue(StdIn.readString());
+    /**
+     * Samples k of the whitespace separated strings of a file uniformly,
+     * reading the file on the given number of threads. The file is cut
+     * into shards of at most 1GB, which are memory mapped; only the k
+     * sampled strings are ever decoded.
+     *
+     * @param fileName name of the file
+     * @param k number of strings to sample
+     * @param threads number of threads
+     * @return the sampled strings
+     * @throws IOException if the file cannot be read
+     */
+    public static List<String> sampleSharded(String fileName, int k, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads " + threads + " is not greater than 0.");
+        }
+        try (final FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            int shardCount = (int) Math.max(threads, (channel.size() + MAX_SHARD - 1) / MAX_SHARD);
+            final long[] offsets = shardOffsets(channel, shardCount);
+            SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<LongReservoir>> shards = new ArrayList<>();
+                for (int i = 0; i < shardCount; i++) {
+                    final int shard = i;
+                    final LongReservoir reservoir = new LongReservoir(k, random.nextLong());
+                    shards.add(executor.submit(() -> {
+                        sampleShard(channel, offsets[shard], offsets[shard + 1], reservoir);
+                        return reservoir;
+                    }));
+                }
+                LongReservoir sample = shards.get(0).get();
+                for (int i = 1; i < shardCount; i++) {
+                    sample.merge(shards.get(i).get());
+                }
+                List<String> strings = new ArrayList<>(sample.size());
+                PrimitiveIterator.OfLong it = sample.iterator();
+                while (it.hasNext()) {
+                    strings.add(decode(channel, it.nextLong()));
+                }
+                return strings;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sampling " + fileName, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdown();
+            }
         }
+    }
 
-        for (int i = 0; i < k; i++) {
-            String s = randomQueue.dequeue();
+    // print the strings in random order
+    private static void printShuffled(Iterable<String> strings) {
+        RandomizedQueue<String> shuffled = new RandomizedQueue<>();
+        for (String s : strings) {
+            shuffled.enqueue(s);
+        }
+        for (String s : shuffled) {
             StdOut.println(s);
         }
     }
+
+    public static void main(String[] args) {
+
+        int k = Integer.parseInt(args[0]);
+        String mode = args.length > 1 ? args[1] : "queue";
+        if (k == 0) return;           // the empty sample, whatever the mode
+
+        switch (mode) {
+            case "queue":
+                RandomizedQueue<String> randomQueue = new RandomizedQueue<>();
+                while (!StdIn.isEmpty()) {
+                    randomQueue.enqueue(StdIn.readString());
+                }
+
+                for (int i = 0; i < k; i++) {
+                    String s = randomQueue.dequeue();
+                    StdOut.println(s);
+                }
+                break;
+            case "R":
+            case "L":
+                Reservoir<String> reservoir = new Reservoir<>(k,
+                        Reservoir.Algorithm.valueOf(mode), ThreadLocalRandom.current().nextLong());
+                while (!StdIn.isEmpty()) {
+                    reservoir.add(StdIn.readString());
+                }
+                printShuffled(reservoir);
+                break;
+            case "weighted":
+                WeightedReservoir<String> weighted = new WeightedReservoir<>(k);
+                while (!StdIn.isEmpty()) {
+                    String item = StdIn.readString();
+                    weighted.add(item, Double.parseDouble(StdIn.readString()));
+                }
+                printShuffled(weighted);
+                break;
+            case "sharded":
+                int threads = args.length > 3 ? Integer.parseInt(args[3])
+                                              : Runtime.getRuntime().availableProcessors();
+                try {
+                    printShuffled(sampleSharded(args[2], k, threads));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode
+                        + ", expected queue, R, L, weighted or sharded.");
+        }
+    }
 }
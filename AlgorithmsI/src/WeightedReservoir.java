@@ -0,0 +1,152 @@
+import edu.princeton.cs.algs4.StdIn;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The <tt>WeightedReservoir</tt> class implements a weighted random
+ * sample of <em>k</em> items, without replacement, from a stream of
+ * unknown length, using memory proportional to <em>k</em> only.
+ * <p>
+ * The implementation is the A-ExpJ algorithm of Efraimidis and Spirakis,
+ * run by an <tt>ExpJSampler</tt>, which keeps the <em>k</em> items of
+ * largest random key, drawn from their weights, and tells in which slot
+ * of the item array each sampled item goes.
+ * </p>
+ * <p>
+ * Since the sample is the <em>k</em> items of largest key, reservoirs
+ * filled from disjoint streams can be merged with <em>merge</em> into a
+ * sample of the union of the streams. With all weights equal to 1 this
+ * gives a uniform sample, which lets several threads sample parts of the
+ * input independently.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class WeightedReservoir<Item> implements Iterable<Item> {
+
+    private final Item[] items;         // sampled items, by slot of the sampler
+    private final ExpJSampler sampler;  // which items are sampled, and where they go
+
+    /**
+     * Initializes an empty reservoir of k items.
+     *
+     * @param k number of items to sample
+     * @throws IllegalArgumentException if k <= 0
+     */
+    public WeightedReservoir(int k) {
+        this(k, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Initializes an empty reservoir of k items
+     * with a reproducible random stream.
+     *
+     * @param k number of items to sample
+     * @param seed the seed of the random stream
+     * @throws IllegalArgumentException if k <= 0
+     */
+    public WeightedReservoir(int k, long seed) {
+        sampler = new ExpJSampler(k, seed);
+        // cast needed since no generic array creation in Java
+        items = (Item[]) new Object[k];
+    }
+
+    /**
+     * Returns the number of items in the reservoir.
+     *
+     * @return the number of items in the reservoir
+     */
+    public int size() {
+        return sampler.size();
+    }
+
+    /**
+     * Returns the number of items offered so far.
+     *
+     * @return the number of items offered
+     */
+    public long count() {
+        return sampler.count();
+    }
+
+    /**
+     * Offers an item with the given weight to the reservoir.
+     *
+     * @param item the item
+     * @param weight the weight of the item
+     * @throws NullPointerException if item is NULL
+     * @throws IllegalArgumentException unless weight is positive and finite
+     */
+    public void add(Item item, double weight) {
+        if (item == null) {
+            throw new java.lang.NullPointerException("Item provided is NULL");
+        }
+        int slot = sampler.offer(weight);
+        if (slot >= 0) items[slot] = item;
+    }
+
+    /**
+     * Merges the items of another reservoir of the same size into this
+     * one, which then holds a sample of both streams. The other reservoir
+     * must have sampled a disjoint stream and is left unchanged.
+     *
+     * @param that the other reservoir
+     * @throws NullPointerException if that is NULL
+     * @throws IllegalArgumentException if the reservoirs have different sizes
+     */
+    public void merge(final WeightedReservoir<Item> that) {
+        if (that == null) {
+            throw new java.lang.NullPointerException("Reservoir provided is NULL");
+        }
+        sampler.merge(that.sampler, (from, to) -> items[to] = that.items[from]);
+    }
+
+    /**
+     * Returns an iterator over the items in the reservoir, in no particular order.
+     *
+     * @return an iterator over the sampled items
+     */
+    @Override
+    public Iterator<Item> iterator() {
+        return new ArrayIterator();
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private class ArrayIterator implements Iterator<Item> {
+        private int i = 0;
+
+        public boolean hasNext() {
+            return i < sampler.size();
+        }
+
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return items[i++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Unit tests the <tt>WeightedReservoir</tt> data type: samples k
+     * strings from standard input, given as pairs of string and weight.
+     *
+     * @param args the sample size k
+     */
+    public static void main(String[] args) {
+        int k = Integer.parseInt(args[0]);
+        WeightedReservoir<String> reservoir = new WeightedReservoir<>(k);
+        while (!StdIn.isEmpty()) {
+            String item = StdIn.readString();
+            reservoir.add(item, Double.parseDouble(StdIn.readString()));
+        }
+        for (String s : reservoir) {
+            StdOut.println(s);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The <tt>WorkStealingDeque</tt> class implements a lock-free
+ * double-ended queue shared by one owner thread and any number
+ * of thief threads.
+ * <p>
+ * The implementation is the Chase-Lev work-stealing deque. The owner
+ * adds and removes items at the end of the deque with <em>addLast</em>,
+ * <em>removeLast</em> and <em>pollLast</em>, which only need a compare
+ * and swap when they compete for the last remaining item. Any thread may
+ * remove items from the beginning with <em>removeFirst</em> and
+ * <em>pollFirst</em>, which claim an item by a compare and swap on
+ * <em>top</em>. The items are stored in a circular array, indexed by
+ * the ever increasing <em>top</em> and <em>bottom</em> counters, which
+ * the owner doubles when it is full.
+ * </p>
+ * <p>
+ * There is no <em>addFirst</em>: adding at the stealing end would let
+ * <em>top</em> go back, and a thief could then claim an item that was
+ * already taken. Thieves never write the array, since the owner may reuse
+ * a slot as soon as <em>top</em> has moved past it: the owner clears the
+ * slots of the stolen items, those below <em>top</em>, at its next
+ * operation, so that they can be garbage collected.
+ * The <em>poll</em> methods return <tt>null</tt> on an
+ * empty deque, the <em>remove</em> methods throw. The <em>size</em> is
+ * exact only when no other thread is working on the deque.
+ * </p>
+ *
+ * @author Ali K Thabet
+ **/
+public class WorkStealingDeque<Item> {
+
+    private final AtomicLong top = new AtomicLong(); // index of the first item, claimed by CAS
+    private volatile long bottom = 0;                // index after the last item, owner only
+    private volatile Item[] a;                       // circular array of items, length a power of 2
+    private long cleared = 0;                        // slots below it hold no stolen item, owner only
+
+    /**
+     * Initializes an empty deque
+     */
+    public WorkStealingDeque() {
+        // cast needed since no generic array creation in Java
+        a = (Item[]) new Object[16];
+    }
+
+    /**
+     * Is this deque empty?
+     *
+     * @return <tt>true</tt> if this deque is empty; <tt>false</tt> otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of items in the deque.
+     *
+     * @return the number of items in the deque
+     */
+    public int size() {
+        long n = bottom - top.get();
+        return n > 0 ? (int) n : 0;
+    }
+
+    // copy items t to b - 1 into an array twice as large, owner only
+    private Item[] grow(Item[] old, long b, long t) {
+        Item[] temp = (Item[]) new Object[2 * old.length];
+        for (long i = t; i < b; i++) {
+            temp[(int) i & (temp.length - 1)] = old[(int) i & (old.length - 1)];
+        }
+        a = temp;
+        cleared = t;
+        return temp;
+    }
+
+    // clear the slots of the items stolen below t, owner only; the owner
+    // calls it before any other write, so none of these slots is reused yet
+    private void clearStolen(Item[] items, long t) {
+        for (long i = cleared; i < t; i++) {
+            items[(int) i & (items.length - 1)] = null;
+        }
+        if (t > cleared) cleared = t;
+    }
+
+    /**
+     * Adds an item to the end of the deque. Owner thread only.
+     *
+     * @param item
+     * @throws NullPointerException if item is NULL
+     */
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new java.lang.NullPointerException("Item provided is NULL");
+        }
+        long b = bottom;
+        long t = top.get();
+        Item[] items = a;
+        clearStolen(items, t);
+        if (b - t > items.length - 1) items = grow(items, b, t);
+        items[(int) b & (items.length - 1)] = item;
+        bottom = b + 1;                // publishes the item to the thieves
+    }
+
+    /**
+     * Removes and returns the last item of the deque. Owner thread only.
+     *
+     * @return the last item of the deque, or <tt>null</tt> if this deque is empty
+     */
+    public Item pollLast() {
+        long b = bottom - 1;
+        Item[] items = a;
+        bottom = b;                    // volatile write before reading top
+        long t = top.get();
+        clearStolen(items, t);
+        if (t > b) {                   // empty
+            bottom = b + 1;
+            return null;
+        }
+        int i = (int) b & (items.length - 1);
+        Item item = items[i];
+        if (t == b) {                  // last item, race the thieves for it
+            if (!top.compareAndSet(t, t + 1)) item = null;
+            items[i] = null;           // taken either way, and not reused yet
+            cleared = t + 1;
+            bottom = b + 1;
+        }
+        else {
+            items[i] = null;           // to avoid loitering
+        }
+        return item;
+    }
+
+    /**
+     * Removes and returns the last item of the deque. Owner thread only.
+     *
+     * @return the last item of the deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null) throw new NoSuchElementException("Deque underflow");
+        return item;
+    }
+
+    /**
+     * Removes and returns the first item of the deque. Any thread.
+     *
+     * @return the first item of the deque, or <tt>null</tt> if this deque is empty
+     */
+    public Item pollFirst() {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) return null;   // empty
+            Item[] items = a;
+            Item item = items[(int) t & (items.length - 1)];
+            // the slot is left to the owner: once top moves, it may reuse it
+            if (top.compareAndSet(t, t + 1)) return item;
+        }
+    }
+
+    /**
+     * Removes and returns the first item of the deque. Any thread.
+     *
+     * @return the first item of the deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null) throw new NoSuchElementException("Deque underflow");
+        return item;
+    }
+
+    /**
+     * Stress tests the <tt>WorkStealingDeque</tt> data type: the owner
+     * adds M items, removing some of them itself, while thieves steal
+     * from the other end. Checks that every item is taken exactly once.
+     *
+     * @param args number of items M and number of thieves, optional
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final int M = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int thieves = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        final WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        final AtomicIntegerArray taken = new AtomicIntegerArray(M);
+        final AtomicLong done = new AtomicLong(); // number of items taken
+
+        Thread[] threads = new Thread[thieves];
+        for (int k = 0; k < thieves; k++) {
+            threads[k] = new Thread(new Runnable() {
+                public void run() {
+                    while (done.get() < M) {
+                        Integer item = deque.pollFirst();
+                        if (item != null) {
+                            taken.incrementAndGet(item);
+                            done.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[k].start();
+        }
+
+        Stopwatch stopwatch = new Stopwatch();
+        for (int i = 0; i < M; i++) {
+            deque.addLast(i);
+            if (i % 3 == 0) {      // the owner takes some work back
+                Integer item = deque.pollLast();
+                if (item != null) {
+                    taken.incrementAndGet(item);
+                    done.incrementAndGet();
+                }
+            }
+        }
+        while (done.get() < M) {   // then helps draining
+            Integer item = deque.pollLast();
+            if (item != null) {
+                taken.incrementAndGet(item);
+                done.incrementAndGet();
+            }
+        }
+        for (Thread thread : threads) thread.join();
+
+        for (int i = 0; i < M; i++) {
+            if (taken.get(i) != 1) {
+                throw new IllegalStateException("Item " + i + " taken " + taken.get(i) + " times");
+            }
+        }
+        StdOut.println(M + " items taken exactly once with " + thieves + " thieves in "
+                + stopwatch.elapsedTime() + " s, " + deque.size() + " left on deque");
+    }
+}